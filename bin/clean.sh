@@ -1,5 +1,3 @@
 #!/bin/bash
 
-rm -rf classes/me
-
-
+rm -rf classes/me classes/META-INF generated
@@ -1,6 +1,11 @@
 #!/bin/bash
 
-mkdir -p classes
+mkdir -p classes generated
 
-javac -d classes -sourcepath src/main/java src/main/java/me/soliveirajr/piping/**/*.java
+# first the annotation processor...
+javac -proc:none -d classes src/main/java/me/soliveirajr/piping/codegen/*.java
+cp -r src/main/resources/META-INF classes
 
+# then everything else, generating the code of the @GenerateTransfer messages...
+# (the processor is already compiled, so leave it out, otherwise javac warns that no processor claimed its annotations)...
+javac -d classes -s generated -cp classes -processorpath classes -implicit:class $(find src/main/java -name '*.java' -not -path '*/codegen/*')
@@ -0,0 +1,4 @@
+#!/bin/bash
+
+java -cp classes me.soliveirajr.piping.bench.MpmcThroughput "$@"
+
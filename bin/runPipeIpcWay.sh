@@ -0,0 +1,4 @@
+#!/bin/bash
+
+java -cp classes me.soliveirajr.piping.pipe_ipc_way.TwoProcesses "$@"
+
@@ -0,0 +1,3 @@
+#!/bin/bash
+
+java -cp classes me.soliveirajr.piping.pipe_sharded_way.ShardedThreads "$@"
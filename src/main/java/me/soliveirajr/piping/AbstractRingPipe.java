@@ -0,0 +1,108 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping;
+
+import me.soliveirajr.piping.util.Builder;
+
+/**
+ * Base class for the pipes backed by a preallocated power-of-two array of slots. The slots are created once
+ * at construction and messages are copied into and out of them with {@link Transferable#transferTo(Object)}, so
+ * nothing is allocated when messages go through the pipe. Dispatch and receive are implemented on top of the
+ * in-place claim/publish and peek/release operations of the subclasses.
+ */
+abstract class AbstractRingPipe<E extends Transferable<E>> implements ZeroCopyPipe<E> {
+    
+    protected final E[] slots;
+    protected final int capacity;
+    protected final int mask;
+    
+    protected AbstractRingPipe(int capacity, Class<E> transferable) {
+        this.slots = newSlots(capacity);
+        this.capacity = slots.length;
+        this.mask = this.capacity - 1;
+        init(transferable);
+    }
+    
+    protected AbstractRingPipe(int capacity, Builder<E> transferable) {
+        this.slots = newSlots(capacity);
+        this.capacity = slots.length;
+        this.mask = this.capacity - 1;
+        init(transferable);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <E> E[] newSlots(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Bad capacity: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size != capacity) size <<= 1; // round up to the next power of two...
+        return (E[]) new Transferable<?>[size];
+    }
+    
+    private void init(Class<E> transferable) {
+        try {
+            for(int i = 0; i < slots.length; i++) {
+                slots[i] = transferable.getDeclaredConstructor().newInstance();
+            }
+        } catch(Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    private void init(Builder<E> transferable) {
+        try {
+            for(int i = 0; i < slots.length; i++) {
+                slots[i] = transferable.newInstance();
+            }
+        } catch(Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    @Override
+    public boolean dispatch(E message) {
+        long sequence = claim();
+        if (sequence < 0) return false; // full...
+        message.transferTo(slots[(int) sequence & mask]);
+        publish(sequence);
+        return true;
+    }
+    
+    @Override
+    public boolean receive(E message) {
+        long sequence = peek();
+        if (sequence < 0) return false; // empty...
+        slots[(int) sequence & mask].transferTo(message);
+        release(sequence);
+        return true;
+    }
+    
+    @Override
+    public final E slot(long sequence) {
+        return slots[(int) sequence & mask];
+    }
+    
+    /**
+     * The number of slots in this pipe, which is the requested capacity rounded up to a power of two
+     * 
+     * @return the capacity of this pipe
+     */
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,205 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping;
+
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+import me.soliveirajr.piping.util.Builder;
+import me.soliveirajr.piping.util.Sequence;
+
+/**
+ * A pipe that delivers every message to every one of its subscribers, for example the owner of the state, a risk
+ * check and a logger. The producer copies a message only once, into a preallocated ring, and each
+ * {@link BroadcastSubscriber} reads the ring through its own cursor.
+ * 
+ * What happens when a subscriber falls a whole ring behind is decided by the {@link Policy}:
+ * <ul>
+ * <li>WAIT: the producer is gated by the slowest subscriber and dispatch returns false while the pipe is full for it</li>
+ * <li>DROP: the producer never waits and a slow subscriber skips the messages that were overwritten, counting them as dropped</li>
+ * <li>DISCONNECT: the producer never waits and a subscriber that would be overwritten is disconnected</li>
+ * </ul>
+ * 
+ * With DROP and DISCONNECT a subscriber can copy a message while it is being overwritten, in which case the copy is
+ * thrown away, so the {@link Transferable#transferTo(Object)} of the message must not fail on inconsistent data.
+ * 
+ * Only one thread may dispatch, only one thread may receive from each subscriber and all subscribers must be added
+ * before the first dispatch. It never blocks.
+ */
+public class BroadcastPipe<E extends Transferable<E>> {
+    
+    public static enum Policy { WAIT, DROP, DISCONNECT }
+    
+    final E[] slots;
+    final int capacity;
+    final int mask;
+    final Policy policy;
+    final Sequence tail = new Sequence(); // next sequence to dispatch, written by the producer
+    final Sequence claimed = new Sequence(); // the producer may be writing any sequence before this one
+    
+    private final Class<E> transferableClass;
+    private final Builder<E> transferableBuilder;
+    
+    private volatile BroadcastSubscriber<E>[] subscribers = newSubscribers(0);
+    private volatile boolean started = false;
+    private long gatingCache = 0; // producer's last view of the slowest subscriber
+    
+    public BroadcastPipe(int capacity, Class<E> transferable) {
+        this(capacity, transferable, Policy.WAIT);
+    }
+    
+    public BroadcastPipe(int capacity, Builder<E> transferable) {
+        this(capacity, transferable, Policy.WAIT);
+    }
+    
+    public BroadcastPipe(int capacity, Class<E> transferable, Policy policy) {
+        this.slots = newSlots(capacity);
+        this.capacity = slots.length;
+        this.mask = this.capacity - 1;
+        this.policy = policy;
+        this.transferableClass = transferable;
+        this.transferableBuilder = null;
+        for(int i = 0; i < slots.length; i++) {
+            slots[i] = newMessage();
+        }
+    }
+    
+    public BroadcastPipe(int capacity, Builder<E> transferable, Policy policy) {
+        this.slots = newSlots(capacity);
+        this.capacity = slots.length;
+        this.mask = this.capacity - 1;
+        this.policy = policy;
+        this.transferableClass = null;
+        this.transferableBuilder = transferable;
+        for(int i = 0; i < slots.length; i++) {
+            slots[i] = newMessage();
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <E> E[] newSlots(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Bad capacity: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size != capacity) size <<= 1; // round up to the next power of two...
+        return (E[]) new Transferable<?>[size];
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <E extends Transferable<E>> BroadcastSubscriber<E>[] newSubscribers(int size) {
+        return (BroadcastSubscriber<E>[]) new BroadcastSubscriber<?>[size];
+    }
+    
+    E newMessage() {
+        try {
+            return transferableClass != null ? transferableClass.getDeclaredConstructor().newInstance() : transferableBuilder.newInstance();
+        } catch(Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    /**
+     * Add a subscriber that will see every message dispatched from now on
+     * 
+     * @return the new subscriber
+     */
+    public synchronized BroadcastSubscriber<E> subscribe() {
+        if (started) throw new IllegalStateException("Subscribers must be added before the first dispatch!");
+        BroadcastSubscriber<E> subscriber = new BroadcastSubscriber<E>(this);
+        BroadcastSubscriber<E>[] copy = Arrays.copyOf(subscribers, subscribers.length + 1);
+        copy[copy.length - 1] = subscriber;
+        subscribers = copy;
+        return subscriber;
+    }
+    
+    /**
+     * Dispatch a message to all subscribers
+     * 
+     * @param message the message to dispatch
+     * @return true if the message was dispatched or false if the pipe is full for the slowest subscriber, which only happens with the WAIT policy
+     */
+    public boolean dispatch(E message) {
+        long sequence = claim();
+        if (sequence < 0) return false; // full...
+        message.transferTo(slots[(int) sequence & mask]);
+        tail.lazySet(sequence + 1);
+        return true;
+    }
+    
+    /**
+     * Dispatch a batch of messages to all subscribers, making them visible only once for the whole batch
+     * 
+     * @param messages the array holding the messages to dispatch
+     * @param offset the index of the first message to dispatch
+     * @param length how many messages to dispatch
+     * @return how many messages were dispatched, which can be less than length with the WAIT policy
+     */
+    public int dispatchBatch(E[] messages, int offset, int length) {
+        int count = 0;
+        long sequence = -1;
+        while(count < length && (sequence = claim()) >= 0) {
+            messages[offset + count++].transferTo(slots[(int) sequence & mask]);
+        }
+        if (count > 0) tail.lazySet(tail.get() + count);
+        return count;
+    }
+    
+    private long claim() {
+        if (!started) started = true;
+        final long sequence = claimed.get();
+        if (policy != Policy.DROP && sequence - gatingCache >= capacity) {
+            gatingCache = minimum();
+            if (sequence - gatingCache >= capacity) {
+                if (policy == Policy.WAIT) return -1; // full...
+                disconnect(sequence - capacity);
+                gatingCache = minimum();
+            }
+        }
+        claimed.lazySet(sequence + 1);
+        if (policy != Policy.WAIT) VarHandle.storeStoreFence(); // subscribers must see the claim before the new data...
+        return sequence;
+    }
+    
+    private void disconnect(long overwritten) {
+        for(BroadcastSubscriber<E> subscriber : subscribers) {
+            if (subscriber.connected && subscriber.cursor.get() <= overwritten) subscriber.connected = false;
+        }
+    }
+    
+    private long minimum() {
+        long minimum = Long.MAX_VALUE;
+        for(BroadcastSubscriber<E> subscriber : subscribers) {
+            if (!subscriber.connected) continue;
+            long sequence = subscriber.cursor.get();
+            if (sequence < minimum) minimum = sequence;
+        }
+        return minimum;
+    }
+    
+    public Policy getPolicy() {
+        return policy;
+    }
+    
+    /**
+     * The number of slots in this pipe, which is the requested capacity rounded up to a power of two
+     * 
+     * @return the capacity of this pipe
+     */
+    public int capacity() {
+        return capacity;
+    }
+}
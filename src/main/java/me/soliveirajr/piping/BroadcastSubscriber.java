@@ -0,0 +1,133 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping;
+
+import java.lang.invoke.VarHandle;
+
+import me.soliveirajr.piping.util.Sequence;
+
+/**
+ * The receiving end of a {@link BroadcastPipe}, with its own cursor over the shared ring. Only one thread may receive
+ * from a subscriber and it never blocks.
+ */
+public class BroadcastSubscriber<E extends Transferable<E>> {
+    
+    private final BroadcastPipe<E> pipe;
+    private final E[] slots;
+    private final int mask;
+    private final E scratch; // where the handler gets its copy when messages can be overwritten
+    
+    final Sequence cursor = new Sequence(); // next sequence to receive, written by this subscriber
+    volatile boolean connected = true;
+    
+    private long tailCache = 0; // last view of the producer's tail
+    private long dropped = 0;
+    
+    BroadcastSubscriber(BroadcastPipe<E> pipe) {
+        this.pipe = pipe;
+        this.slots = pipe.slots;
+        this.mask = pipe.mask;
+        this.scratch = pipe.policy == BroadcastPipe.Policy.WAIT ? null : pipe.newMessage();
+    }
+    
+    /**
+     * Receive the next message
+     * 
+     * @param message the message to receive
+     * @return true if the message was received or false if there isn't a new message or this subscriber is disconnected
+     */
+    public boolean receive(E message) {
+        long sequence = cursor.get();
+        while(connected) {
+            if (sequence >= tailCache) {
+                tailCache = pipe.tail.get();
+                if (sequence >= tailCache) return false; // empty...
+            }
+            slots[(int) sequence & mask].transferTo(message);
+            if (pipe.policy != BroadcastPipe.Policy.WAIT) {
+                VarHandle.loadLoadFence(); // the copy must be done before we check if it was overwritten...
+                if (!connected) return false;
+                long claimed = pipe.claimed.get();
+                if (claimed - sequence > pipe.capacity) { // overwritten while we were copying, or before...
+                    long next = claimed - pipe.capacity;
+                    dropped += next - sequence;
+                    sequence = next;
+                    cursor.lazySet(sequence);
+                    continue;
+                }
+            }
+            cursor.lazySet(sequence + 1);
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Receive all new messages, up to a maximum, passing each one to the handler. With the WAIT policy the handler gets
+     * the messages in place, in the ring, and they are released to the producer only once at the end. With the other
+     * policies it gets a copy, because the producer can overwrite the ring at any time.
+     * 
+     * @param handler the handler that will process each message
+     * @param maxMessages the maximum number of messages to receive
+     * @return how many messages were received
+     */
+    public int drain(MessageHandler<E> handler, int maxMessages) {
+        if (scratch != null) {
+            int count = 0;
+            while(count < maxMessages && receive(scratch)) {
+                count++;
+                handler.onMessage(scratch);
+            }
+            return count;
+        }
+        if (!connected) return 0;
+        final long sequence = cursor.get();
+        if (sequence + maxMessages > tailCache) tailCache = pipe.tail.get();
+        int count = (int) Math.min(maxMessages, tailCache - sequence);
+        int i = 0;
+        try {
+            while(i < count) handler.onMessage(slots[(int) (sequence + i++) & mask]);
+        } finally {
+            if (i > 0) cursor.lazySet(sequence + i); // give the whole batch back to the producer at once...
+        }
+        return count;
+    }
+    
+    /**
+     * Stop receiving messages, so that this subscriber no longer gates the producer
+     */
+    public void close() {
+        connected = false;
+    }
+    
+    /**
+     * A subscriber is disconnected when it is closed or when it falls behind with the DISCONNECT policy
+     * 
+     * @return true if this subscriber is still receiving messages
+     */
+    public boolean isConnected() {
+        return connected;
+    }
+    
+    /**
+     * How many messages this subscriber lost for falling behind with the DROP policy
+     * 
+     * @return the number of dropped messages
+     */
+    public long getDropped() {
+        return dropped;
+    }
+}
@@ -0,0 +1,49 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Writes a message as bytes and reads it back, for when a message has to leave the process memory (a file, a socket).
+ *
+ * @param <E> the message you want to encode/decode
+ */
+public interface Codec<E> {
+    
+    /**
+     * The maximum number of bytes an encoded message can take
+     * 
+     * @return the maximum size in bytes
+     */
+    public int maxSize();
+    
+    /**
+     * Write the message to the buffer, starting at its position and advancing it
+     * 
+     * @param message the message to encode
+     * @param buffer the buffer to write to
+     */
+    public void encode(E message, ByteBuffer buffer);
+    
+    /**
+     * Read a message from the buffer, starting at its position and advancing it
+     * 
+     * @param buffer the buffer to read from
+     * @param message the message that will receive the contents/data
+     */
+    public void decode(ByteBuffer buffer, E message);
+}
@@ -0,0 +1,244 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import me.soliveirajr.piping.util.Builder;
+import me.soliveirajr.piping.util.Sequence;
+
+/**
+ * A last-value-wins pipe for feeds, like market data, where a slow consumer only needs the latest message of each
+ * key. Each key gets its own preallocated slot the first time it is dispatched. A new message for a key that is still
+ * pending overwrites the pending message in place, so the producer never blocks, the pipe never fills up and the
+ * consumer always gets the freshest message of each key, in the order the keys became pending.
+ * 
+ * The producer writes a slot under a sequence lock and the consumer retries its copy if the slot changed while it was
+ * copying, so the {@link Transferable#transferTo(Object)} of the message must not fail on inconsistent data. The
+ * slots of the pending keys go through a ring of slot indexes, where a slot can only be once.
+ * 
+ * The capacity is the maximum number of distinct keys. Only one thread may dispatch and only one thread may receive.
+ */
+public class ConflatingPipe<E extends Transferable<E>> implements Pipe<E> {
+    
+    private static final long NO_KEY = Long.MIN_VALUE;
+    
+    private final E[] slots;
+    private final int capacity;
+    private final int mask;
+    private final KeyExtractor<E> keyExtractor;
+    private final AtomicLongArray versions; // odd while the producer is writing the slot
+    private final AtomicIntegerArray pending; // 1 while the slot is in the ring
+    private final int[] ring; // indexes of the pending slots
+    private final Sequence head = new Sequence(); // next index to receive, written by the consumer
+    private final Sequence tail = new Sequence(); // next index to dispatch, written by the producer
+    private final E scratch; // where the drain handler gets its copy
+    
+    // producer only...
+    private final long[] keys; // open addressing, key to slot
+    private final int[] keySlots;
+    private int assigned = 0;
+    private long conflated = 0;
+    
+    // consumer only...
+    private final long[] receivedVersions;
+    private long tailCache = 0; // consumer's last view of tail
+    
+    public ConflatingPipe(int capacity, Class<E> transferable, KeyExtractor<E> keyExtractor) {
+        this.slots = newSlots(capacity);
+        this.capacity = slots.length;
+        this.mask = this.capacity - 1;
+        this.keyExtractor = keyExtractor;
+        this.versions = new AtomicLongArray(this.capacity);
+        this.pending = new AtomicIntegerArray(this.capacity);
+        this.ring = new int[this.capacity];
+        this.keys = newKeys(this.capacity);
+        this.keySlots = new int[keys.length];
+        this.receivedVersions = new long[this.capacity];
+        try {
+            for(int i = 0; i < slots.length; i++) {
+                slots[i] = transferable.getDeclaredConstructor().newInstance();
+            }
+            this.scratch = transferable.getDeclaredConstructor().newInstance();
+        } catch(Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    public ConflatingPipe(int capacity, Builder<E> transferable, KeyExtractor<E> keyExtractor) {
+        this.slots = newSlots(capacity);
+        this.capacity = slots.length;
+        this.mask = this.capacity - 1;
+        this.keyExtractor = keyExtractor;
+        this.versions = new AtomicLongArray(this.capacity);
+        this.pending = new AtomicIntegerArray(this.capacity);
+        this.ring = new int[this.capacity];
+        this.keys = newKeys(this.capacity);
+        this.keySlots = new int[keys.length];
+        this.receivedVersions = new long[this.capacity];
+        try {
+            for(int i = 0; i < slots.length; i++) {
+                slots[i] = transferable.newInstance();
+            }
+            this.scratch = transferable.newInstance();
+        } catch(Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <E> E[] newSlots(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 29)) {
+            throw new IllegalArgumentException("Bad capacity: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size != capacity) size <<= 1; // round up to the next power of two...
+        return (E[]) new Transferable<?>[size];
+    }
+    
+    private static long[] newKeys(int capacity) {
+        long[] keys = new long[capacity * 2]; // never more than half full...
+        for(int i = 0; i < keys.length; i++) {
+            keys[i] = NO_KEY;
+        }
+        return keys;
+    }
+    
+    /**
+     * The slot of a key, assigning a free slot if the key is new
+     * 
+     * @return the slot or -1 if the key is new and all slots are taken
+     */
+    private int slotOf(long key) {
+        if (key == NO_KEY) throw new IllegalArgumentException("Bad key: " + key);
+        int hash = Long.hashCode(key) * 0x9E3779B9;
+        int index = (hash ^ (hash >>> 16)) & (keys.length - 1);
+        while(keys[index] != NO_KEY) {
+            if (keys[index] == key) return keySlots[index];
+            index = (index + 1) & (keys.length - 1);
+        }
+        if (assigned == capacity) return -1; // no more keys...
+        keys[index] = key;
+        keySlots[index] = assigned;
+        return assigned++;
+    }
+    
+    /**
+     * Dispatch a message, overwriting the pending message of its key if there is one. It never blocks.
+     * 
+     * @param message the message to dispatch
+     * @return true if the message was dispatched or false if its key is new and the pipe already has capacity keys
+     */
+    @Override
+    public boolean dispatch(E message) {
+        final int slot = slotOf(keyExtractor.keyOf(message));
+        if (slot < 0) return false;
+        final long version = versions.get(slot);
+        versions.lazySet(slot, version + 1); // locked...
+        VarHandle.storeStoreFence(); // the consumer must see the lock before the new data...
+        message.transferTo(slots[slot]);
+        versions.set(slot, version + 2); // unlocked, volatile so it is ordered with the read of pending below
+        if (pending.get(slot) == 0) {
+            pending.lazySet(slot, 1);
+            final long t = tail.get();
+            ring[(int) t & mask] = slot;
+            tail.lazySet(t + 1);
+        } else {
+            conflated++;
+        }
+        return true;
+    }
+    
+    /**
+     * Receive the freshest message of the next pending key
+     * 
+     * @param message the message to receive
+     * @return true if the message was received or false if no key is pending
+     */
+    @Override
+    public boolean receive(E message) {
+        while(true) {
+            final long h = head.get();
+            if (h >= tailCache) {
+                tailCache = tail.get();
+                if (h >= tailCache) return false; // empty...
+            }
+            final int slot = ring[(int) h & mask];
+            head.lazySet(h + 1);
+            pending.set(slot, 0); // from now on a new message for this key makes it pending again...
+            final long version = read(slot, message);
+            if (version != receivedVersions[slot]) { // not a message we already got the last time this key was pending...
+                receivedVersions[slot] = version;
+                return true;
+            }
+        }
+    }
+    
+    private long read(int slot, E message) {
+        final E toReceive = slots[slot];
+        while(true) {
+            long version = versions.get(slot);
+            if ((version & 1) == 1) { // the producer is writing it...
+                Thread.onSpinWait();
+                continue;
+            }
+            toReceive.transferTo(message);
+            VarHandle.loadLoadFence(); // the copy must be done before we check the version again...
+            if (versions.get(slot) == version) return version;
+        }
+    }
+    
+    @Override
+    public int dispatchBatch(E[] messages, int offset, int length) {
+        int count = 0;
+        while(count < length && dispatch(messages[offset + count])) count++;
+        return count;
+    }
+    
+    /**
+     * Receive the freshest message of all pending keys, up to a maximum, passing each one to the handler. The handler
+     * gets a copy, because the producer can overwrite the slots at any time.
+     */
+    @Override
+    public int drain(MessageHandler<E> handler, int maxMessages) {
+        int count = 0;
+        while(count < maxMessages && receive(scratch)) {
+            count++;
+            handler.onMessage(scratch);
+        }
+        return count;
+    }
+    
+    /**
+     * How many messages overwrote a pending message, written by the producer
+     * 
+     * @return the number of conflated messages
+     */
+    public long getConflated() {
+        return conflated;
+    }
+    
+    /**
+     * The maximum number of distinct keys, which is the requested capacity rounded up to a power of two
+     * 
+     * @return the capacity of this pipe
+     */
+    public int capacity() {
+        return capacity;
+    }
+}
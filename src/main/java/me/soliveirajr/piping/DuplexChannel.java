@@ -0,0 +1,259 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping;
+
+import me.soliveirajr.piping.util.Builder;
+import me.soliveirajr.piping.util.Sequence;
+import me.soliveirajr.piping.wait.BusySpinWaitStrategy;
+import me.soliveirajr.piping.wait.WaitStrategy;
+
+/**
+ * A request/reply channel between a client thread and a server thread, backed by a preallocated ring of messages.
+ * The same message carries the request and the reply: the client copies the request into a slot, the server handles
+ * it in place writing the reply into the same slot and the client copies the whole message back. The completion of the
+ * replies is signaled by a single sequence, so a round trip costs two copies and two ordered writes.
+ * 
+ * The client can make a synchronous {@link #call(Transferable)} or pipeline up to capacity outstanding requests with
+ * {@link #send(Transferable)} and {@link #receive(Transferable)}. Each request gets a correlation id and the replies
+ * come back in the same order as the requests.
+ * 
+ * <pre>
+ * // client
+ * long id = channel.send(request); // -1 if there are already capacity outstanding requests
+ * long repliedId = channel.receive(reply); // -1 if the next reply is not ready yet
+ * 
+ * // server
+ * channel.serve(handler, 64); // the handler reads the request and writes the reply in place
+ * </pre>
+ * 
+ * Only one thread may be the client and only one thread may be the server.
+ */
+public class DuplexChannel<E extends Transferable<E>> {
+    
+    private final E[] slots;
+    private final int capacity;
+    private final int mask;
+    private final Sequence requested = new Sequence(); // next request to be sent, written by the client
+    private final Sequence replied = new Sequence(); // next request to be replied, written by the server
+    private final WaitStrategy waitStrategy;
+    
+    private long collected = 0; // client's next reply to collect
+    private long repliedCache = 0; // client's last view of replied
+    private long requestedCache = 0; // server's last view of requested
+    
+    public DuplexChannel(int capacity, Class<E> transferable) {
+        this(capacity, transferable, new BusySpinWaitStrategy());
+    }
+    
+    public DuplexChannel(int capacity, Builder<E> transferable) {
+        this(capacity, transferable, new BusySpinWaitStrategy());
+    }
+    
+    /**
+     * @param capacity the maximum number of outstanding requests, rounded up to a power of two
+     * @param transferable the message carrying the request and the reply
+     * @param waitStrategy how the client waits for the reply of a synchronous call
+     */
+    public DuplexChannel(int capacity, Class<E> transferable, WaitStrategy waitStrategy) {
+        this.slots = newSlots(capacity);
+        this.capacity = slots.length;
+        this.mask = this.capacity - 1;
+        this.waitStrategy = waitStrategy;
+        init(transferable);
+    }
+    
+    public DuplexChannel(int capacity, Builder<E> transferable, WaitStrategy waitStrategy) {
+        this.slots = newSlots(capacity);
+        this.capacity = slots.length;
+        this.mask = this.capacity - 1;
+        this.waitStrategy = waitStrategy;
+        init(transferable);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <E> E[] newSlots(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Bad capacity: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size != capacity) size <<= 1; // round up to the next power of two...
+        return (E[]) new Transferable<?>[size];
+    }
+    
+    private void init(Class<E> transferable) {
+        try {
+            for(int i = 0; i < slots.length; i++) {
+                slots[i] = transferable.getDeclaredConstructor().newInstance();
+            }
+        } catch(Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    private void init(Builder<E> transferable) {
+        try {
+            for(int i = 0; i < slots.length; i++) {
+                slots[i] = transferable.newInstance();
+            }
+        } catch(Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    // the client side...
+    
+    /**
+     * Send a request without waiting for its reply
+     * 
+     * @param request the request
+     * @return the correlation id of the request or -1 if there are already capacity outstanding requests
+     */
+    public long send(E request) {
+        long id = claim();
+        if (id < 0) return -1; // too many outstanding requests...
+        request.transferTo(slots[(int) id & mask]);
+        publish(id);
+        return id;
+    }
+    
+    /**
+     * Receive the reply of the oldest outstanding request, if it is ready
+     * 
+     * @param reply the message to copy the reply into
+     * @return the correlation id of the request of this reply or -1 if the reply is not ready yet
+     */
+    public long receive(E reply) {
+        final long id = collected;
+        if (id >= repliedCache) {
+            repliedCache = replied.get();
+            if (id >= repliedCache) return -1; // not yet...
+        }
+        slots[(int) id & mask].transferTo(reply);
+        collected = id + 1;
+        return id;
+    }
+    
+    /**
+     * Send a request and wait for its reply, which is copied back into the same message. All the replies of the
+     * requests sent before must have been received.
+     * 
+     * @param message the request and then the reply
+     */
+    public void call(E message) {
+        if (collected != requested.get()) throw new IllegalStateException("There are outstanding requests!");
+        send(message);
+        int attempt = 0;
+        while(receive(message) < 0) waitStrategy.idle(attempt++); // block...
+    }
+    
+    /**
+     * How many requests were sent and still have replies to be received
+     * 
+     * @return the number of outstanding requests
+     */
+    public int getOutstanding() {
+        return (int) (requested.get() - collected);
+    }
+    
+    // the server side...
+    
+    /**
+     * Handle all the requests available, up to a maximum, in place. The handler must write the reply into the same
+     * message. The replies are completed all at once at the end, or up to the failing request if the handler throws.
+     * 
+     * @param handler the handler that will process each request
+     * @param maxRequests the maximum number of requests to handle
+     * @return how many requests were handled, zero if there are none
+     */
+    public int serve(MessageHandler<E> handler, int maxRequests) {
+        final long id = replied.get();
+        if (id + maxRequests > requestedCache) requestedCache = requested.get();
+        int count = (int) Math.min(maxRequests, requestedCache - id);
+        int i = 0;
+        try {
+            while(i < count) handler.onMessage(slots[(int) (id + i++) & mask]);
+        } finally {
+            if (i > 0) reply(id + i - 1);
+        }
+        return count;
+    }
+    
+    // the zero-copy operations...
+    
+    /**
+     * Claim the slot of the next request so it can be written in place, called by the client
+     * 
+     * @return the correlation id of the request or -1 if there are already capacity outstanding requests
+     */
+    public long claim() {
+        final long id = requested.get();
+        if (id - collected >= capacity) return -1; // too many outstanding requests...
+        return id;
+    }
+    
+    /**
+     * Send a claimed request, called by the client
+     * 
+     * @param id the correlation id returned by claim
+     */
+    public void publish(long id) {
+        requested.lazySet(id + 1);
+        waitStrategy.signal();
+    }
+    
+    /**
+     * The next request to be handled in place, called by the server
+     * 
+     * @return the correlation id of the request or -1 if there are no requests
+     */
+    public long peek() {
+        final long id = replied.get();
+        if (id >= requestedCache) {
+            requestedCache = requested.get();
+            if (id >= requestedCache) return -1; // no requests...
+        }
+        return id;
+    }
+    
+    /**
+     * Complete the reply of a request, and of all the requests before it, called by the server
+     * 
+     * @param id the correlation id of the request
+     */
+    public void reply(long id) {
+        replied.lazySet(id + 1);
+        waitStrategy.signal();
+    }
+    
+    /**
+     * The pooled message of a claimed or peeked correlation id
+     * 
+     * @param id the correlation id returned by claim or peek
+     * @return the message instance in that slot
+     */
+    public E slot(long id) {
+        return slots[(int) id & mask];
+    }
+    
+    /**
+     * The maximum number of outstanding requests, which is the requested capacity rounded up to a power of two
+     * 
+     * @return the capacity of this channel
+     */
+    public int capacity() {
+        return capacity;
+    }
+}
\ No newline at end of file
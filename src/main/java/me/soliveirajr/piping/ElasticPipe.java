@@ -0,0 +1,330 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping;
+
+import me.soliveirajr.piping.util.Builder;
+import me.soliveirajr.piping.util.Sequence;
+import me.soliveirajr.piping.wait.WaitStrategy;
+
+/**
+ * A lock-free single-producer/single-consumer pipe whose pool of messages grows and shrinks with the load, between a
+ * minimum and a maximum capacity, instead of preallocating its worst burst up front.
+ * 
+ * Like the linked pipes, messages go through the pipe by reference: the producer takes a free message from the pool,
+ * copies into it and puts it in the queue, and the consumer copies out of it and gives it back to the pool. Both the
+ * queue and the pool are rings of references sized for the maximum capacity, so the only memory the maximum costs
+ * up front is one reference per message. The messages themselves are created in chunks, only when the pool runs dry,
+ * and a chunk is dropped when the pipe spends a long window of dispatches far below its current capacity. So nothing
+ * is allocated in the steady state. When the consumer finds the pipe empty, the window also ends early, at most once
+ * every {@link #IDLE_SHRINK_NANOS}, so a pipe whose load drops to a trickle shrinks too. A pipe nobody dispatches to at
+ * all only shrinks when the producer calls {@link #trim()}.
+ * 
+ * Without a {@link WaitStrategy} it never blocks: dispatch returns false when the pipe has grown to its maximum
+ * capacity and it is full, and receive returns false if it is empty. With a wait strategy both block instead.
+ * 
+ * Only one thread may dispatch and only one thread may receive.
+ */
+public class ElasticPipe<E extends Transferable<E>> implements Pipe<E> {
+    
+    /**
+     * How often, at most, a consumer that finds the pipe empty makes the producer end its window early
+     */
+    public static final long IDLE_SHRINK_NANOS = 1_000_000_000L;
+    
+    private final E[] queue; // messages dispatched and not yet received
+    private final E[] pool; // messages given back by the consumer
+    private final int mask;
+    private final int minCapacity;
+    private final int maxCapacity;
+    private final int chunkSize;
+    private final int shrinkWindow;
+    private final Builder<E> builder;
+    private final WaitStrategy waitStrategy;
+    private final Sequence published = new Sequence(); // queue tail, written by the producer
+    private final Sequence recycled = new Sequence(); // pool tail, written by the consumer
+    private volatile boolean idle = false; // set by the consumer when it finds the pipe empty for a while
+    
+    // producer only...
+    private final E[] spares; // the rest of the last chunk created
+    private int spareCount = 0;
+    private long tail = 0;
+    private long poolHead = 0;
+    private long recycledCache = 0;
+    private volatile int allocated = 0;
+    private int lowWater = Integer.MAX_VALUE; // fewest free messages seen during the current window
+    private int windowCount = 0;
+    
+    // consumer only...
+    private long head = 0;
+    private long publishedCache = 0;
+    private long poolTail = 0;
+    private int emptyPolls = 0;
+    private long lastIdle = System.nanoTime();
+    
+    public ElasticPipe(int minCapacity, int maxCapacity, int chunkSize, Class<E> transferable) {
+        this(minCapacity, maxCapacity, chunkSize, builderOf(transferable), null);
+    }
+    
+    public ElasticPipe(int minCapacity, int maxCapacity, int chunkSize, Builder<E> transferable) {
+        this(minCapacity, maxCapacity, chunkSize, transferable, null);
+    }
+    
+    public ElasticPipe(int minCapacity, int maxCapacity, int chunkSize, Class<E> transferable, WaitStrategy waitStrategy) {
+        this(minCapacity, maxCapacity, chunkSize, builderOf(transferable), waitStrategy);
+    }
+    
+    /**
+     * @param minCapacity the messages created up front and never dropped
+     * @param maxCapacity the most messages the pipe can hold
+     * @param chunkSize how many messages to create or drop at a time
+     * @param transferable the builder of the messages
+     * @param waitStrategy how to wait when the pipe is full or empty, or null to never block
+     */
+    public ElasticPipe(int minCapacity, int maxCapacity, int chunkSize, Builder<E> transferable, WaitStrategy waitStrategy) {
+        if (maxCapacity <= 0 || maxCapacity > (1 << 30) || minCapacity < 0 || minCapacity > maxCapacity) {
+            throw new IllegalArgumentException("Bad capacity: min=" + minCapacity + " max=" + maxCapacity);
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Bad chunk size: " + chunkSize);
+        }
+        this.queue = newRing(maxCapacity);
+        this.pool = newRing(maxCapacity);
+        this.mask = queue.length - 1;
+        this.minCapacity = minCapacity;
+        this.maxCapacity = maxCapacity;
+        this.chunkSize = Math.min(chunkSize, maxCapacity);
+        this.shrinkWindow = 16 * queue.length;
+        this.builder = transferable;
+        this.waitStrategy = waitStrategy;
+        this.spares = newRing(this.chunkSize);
+        for(int i = 0; i < minCapacity; i++) {
+            pool[i] = transferable.newInstance();
+        }
+        this.allocated = minCapacity;
+        this.poolTail = minCapacity;
+        this.recycledCache = minCapacity;
+        recycled.set(minCapacity);
+    }
+    
+    private static <E> Builder<E> builderOf(final Class<E> transferable) {
+        return new Builder<E>() {
+            @Override
+            public E newInstance() {
+                try {
+                    return transferable.getDeclaredConstructor().newInstance();
+                } catch(Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <E> E[] newRing(int capacity) {
+        int size = Integer.highestOneBit(capacity);
+        if (size != capacity) size <<= 1; // round up to the next power of two...
+        return (E[]) new Transferable<?>[size];
+    }
+    
+    @Override
+    public boolean dispatch(E message) {
+        E toDispatch;
+        if ((toDispatch = take()) == null) {
+            if (waitStrategy == null) return false; // full...
+            int attempt = 0;
+            while((toDispatch = take()) == null) waitStrategy.idle(attempt++); // block...
+        }
+        message.transferTo(toDispatch);
+        queue[(int) tail++ & mask] = toDispatch;
+        published.lazySet(tail);
+        if (waitStrategy != null) waitStrategy.signal();
+        return true;
+    }
+    
+    @Override
+    public int dispatchBatch(E[] messages, int offset, int length) {
+        int count = 0;
+        int attempt = 0;
+        E toDispatch;
+        while(count < length) {
+            if ((toDispatch = take()) == null) {
+                if (waitStrategy == null) break; // full...
+                publish(); // let the consumer have what we have so far before waiting...
+                waitStrategy.idle(attempt++);
+                continue;
+            }
+            messages[offset + count++].transferTo(toDispatch);
+            queue[(int) tail++ & mask] = toDispatch;
+            attempt = 0;
+        }
+        publish(); // publish the whole batch at once...
+        return count;
+    }
+    
+    private void publish() {
+        if (published.get() != tail) {
+            published.lazySet(tail);
+            if (waitStrategy != null) waitStrategy.signal();
+        }
+    }
+    
+    private E take() {
+        E message;
+        final long h = poolHead;
+        if (h >= recycledCache) {
+            recycledCache = recycled.get();
+            final int free = (int) (recycledCache - h) + spareCount;
+            if (free < lowWater) lowWater = free;
+        }
+        if (h < recycledCache) {
+            final int index = (int) h & mask;
+            message = pool[index];
+            pool[index] = null; // do not keep a dropped message alive...
+            poolHead = h + 1;
+        } else if (spareCount > 0 || grow()) {
+            message = spares[--spareCount];
+            spares[spareCount] = null;
+        } else {
+            return null; // at the maximum capacity and full...
+        }
+        if (++windowCount == shrinkWindow || idle) {
+            final int free = Math.min(lowWater, (int) (recycledCache - poolHead) + spareCount);
+            if (free >= 2 * chunkSize) shrink(chunkSize); // far below capacity for a long time...
+            lowWater = Integer.MAX_VALUE;
+            windowCount = 0;
+            if (idle) idle = false;
+        }
+        return message;
+    }
+    
+    /**
+     * Growing is immediate, because the pool is empty and waiting would make dispatch fail (or block) below the maximum
+     * capacity. The hysteresis is on the other side: the pool just ran dry, so no chunk can be dropped until a whole
+     * new window goes by with at least two chunks free.
+     */
+    private boolean grow() {
+        final int n = Math.min(chunkSize, maxCapacity - allocated);
+        if (n <= 0) return false;
+        for(int i = 0; i < n; i++) {
+            spares[spareCount++] = builder.newInstance();
+        }
+        allocated += n;
+        return true;
+    }
+    
+    private int shrink(int max) {
+        int n = Math.min(max, allocated - minCapacity);
+        int dropped = 0;
+        while(dropped < n && spareCount > 0) {
+            spares[--spareCount] = null;
+            dropped++;
+        }
+        if (dropped < n) recycledCache = recycled.get();
+        while(dropped < n && poolHead < recycledCache) {
+            pool[(int) poolHead++ & mask] = null;
+            dropped++;
+        }
+        allocated -= dropped;
+        return dropped;
+    }
+    
+    /**
+     * Drop the messages that are not in use, down to the minimum capacity. It must be called by the producer thread,
+     * for example when it goes idle.
+     * 
+     * @return how many messages were dropped
+     */
+    public int trim() {
+        lowWater = Integer.MAX_VALUE;
+        windowCount = 0;
+        return shrink(Integer.MAX_VALUE);
+    }
+    
+    private E poll() {
+        final long h = head;
+        if (h >= publishedCache && h >= (publishedCache = published.get())) { // empty...
+            if ((++emptyPolls & 255) == 0) checkIdle(); // no need to read the clock on every poll...
+            return null;
+        }
+        final int index = (int) h & mask;
+        E message = queue[index];
+        queue[index] = null; // do not keep a dropped message alive...
+        head = h + 1;
+        return message;
+    }
+    
+    private void checkIdle() {
+        final long now = System.nanoTime();
+        if (now - lastIdle >= IDLE_SHRINK_NANOS) {
+            if (allocated > minCapacity && !idle) idle = true; // the producer checks its window on its next dispatch...
+            lastIdle = now;
+        }
+    }
+    
+    @Override
+    public boolean receive(E message) {
+        E toReceive;
+        if ((toReceive = poll()) == null) {
+            if (waitStrategy == null) return false; // empty...
+            int attempt = 0;
+            while((toReceive = poll()) == null) waitStrategy.idle(attempt++); // block...
+        }
+        toReceive.transferTo(message);
+        pool[(int) poolTail++ & mask] = toReceive;
+        recycled.lazySet(poolTail); // give it back to the producer...
+        if (waitStrategy != null) waitStrategy.signal();
+        return true;
+    }
+    
+    @Override
+    public int drain(MessageHandler<E> handler, int maxMessages) {
+        int count = 0;
+        E toReceive;
+        try {
+            while(count < maxMessages && (toReceive = poll()) != null) {
+                count++;
+                try {
+                    handler.onMessage(toReceive);
+                } finally {
+                    pool[(int) poolTail++ & mask] = toReceive;
+                }
+            }
+        } finally {
+            if (count > 0) {
+                recycled.lazySet(poolTail); // give the whole batch back to the producer at once...
+                if (waitStrategy != null) waitStrategy.signal();
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * The number of messages this pipe has created and not dropped, between the minimum and the maximum capacity
+     * 
+     * @return the current capacity of this pipe
+     */
+    public int capacity() {
+        return allocated;
+    }
+    
+    public int getMinCapacity() {
+        return minCapacity;
+    }
+    
+    public int getMaxCapacity() {
+        return maxCapacity;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,80 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A message that holds no data of its own but points to a fixed-size region of a {@link ByteBuffer}. Subclasses
+ * read and write their fields straight from/to the buffer, so the same instance can be moved from slot to slot
+ * of an off-heap pipe with {@link #wrap(ByteBuffer, int)}.
+ * 
+ * A flyweight created with its default constructor or with {@link #Flyweight(int)} points to its own small direct
+ * buffer, so it can be used as the message you dispatch or receive into.
+ *
+ * @param <E> the flyweight itself
+ */
+public abstract class Flyweight<E extends Flyweight<E>> implements Transferable<E> {
+    
+    protected ByteBuffer buffer;
+    protected int offset;
+    
+    /**
+     * Creates a flyweight with its own buffer of {@link #size()} bytes. This constructor calls <code>size()</code>
+     * before the fields of the subclass are initialized, so <code>size()</code> must return a constant. If the size
+     * depends on a field or a constructor argument, use {@link #Flyweight(int)} instead.
+     */
+    protected Flyweight() {
+        wrap(ByteBuffer.allocateDirect(size()).order(ByteOrder.nativeOrder()), 0);
+    }
+    
+    /**
+     * Creates a flyweight with its own buffer of the given size
+     * 
+     * @param size the number of bytes, the same that {@link #size()} returns
+     */
+    protected Flyweight(int size) {
+        wrap(ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder()), 0);
+    }
+    
+    protected Flyweight(ByteBuffer buffer, int offset) {
+        wrap(buffer, offset);
+    }
+    
+    /**
+     * The fixed number of bytes this flyweight uses in its buffer
+     * 
+     * @return the size in bytes
+     */
+    public abstract int size();
+    
+    /**
+     * Point this flyweight to another region of memory
+     * 
+     * @param buffer the buffer holding the data
+     * @param offset where the data starts in the buffer
+     */
+    public void wrap(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+    }
+    
+    @Override
+    public void transferTo(E dest) {
+        dest.buffer.put(dest.offset, buffer, offset, size());
+    }
+}
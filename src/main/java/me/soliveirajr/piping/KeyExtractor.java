@@ -0,0 +1,32 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping;
+
+/**
+ * Extracts from a message the key that decides which partition of a {@link PartitionedPipe} it goes to
+ *
+ * @param <E> the message
+ */
+public interface KeyExtractor<E> {
+    
+    /**
+     * The key of a message. Messages with the same key always go to the same partition, in order.
+     * 
+     * @param message the message
+     * @return its key
+     */
+    public long keyOf(E message);
+}
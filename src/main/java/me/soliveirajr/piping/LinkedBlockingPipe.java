@@ -18,31 +18,45 @@ package me.soliveirajr.piping;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 import me.soliveirajr.piping.util.Builder;
+import me.soliveirajr.piping.wait.BusySpinWaitStrategy;
+import me.soliveirajr.piping.wait.WaitStrategy;
 
 /**
  * A pipe that blocks until there is space available for a message to be sent and until there is a message available to be received.
+ * How it waits is decided by its {@link WaitStrategy}, which by default busy spins.
  */
 public class LinkedBlockingPipe<E extends Transferable<E>> implements Pipe<E> {
 
     private final ConcurrentLinkedQueue<E> queue;
     private final ConcurrentLinkedQueue<E> pool;
+    private final WaitStrategy waitStrategy;
     
     public LinkedBlockingPipe(int capacity, Class<E> transferable) {
+        this(capacity, transferable, new BusySpinWaitStrategy());
+    }
+    
+    public LinkedBlockingPipe(int capacity, Builder<E> transferable) {
+        this(capacity, transferable, new BusySpinWaitStrategy());
+    }
+    
+    public LinkedBlockingPipe(int capacity, Class<E> transferable, WaitStrategy waitStrategy) {
         this.queue = new ConcurrentLinkedQueue<E>();
         this.pool = new ConcurrentLinkedQueue<E>();
+        this.waitStrategy = waitStrategy;
         init(capacity, transferable);
     }
     
-    public LinkedBlockingPipe(int capacity, Builder<E> transferable) {
+    public LinkedBlockingPipe(int capacity, Builder<E> transferable, WaitStrategy waitStrategy) {
         this.queue = new ConcurrentLinkedQueue<E>();
         this.pool = new ConcurrentLinkedQueue<E>();
+        this.waitStrategy = waitStrategy;
         init(capacity, transferable);
     }
     
     private void init(int capacity, Class<E> transferable) {
         try {
             for(int i = 0; i < capacity; i++) {
-                pool.add(transferable.newInstance());
+                pool.add(transferable.getDeclaredConstructor().newInstance());
             }
         } catch(Exception e) {
             throw new RuntimeException(e);
@@ -62,18 +76,43 @@ public class LinkedBlockingPipe<E extends Transferable<E>> implements Pipe<E> {
     @Override
     public boolean dispatch(E message) {
         E toDispatch;
-        while((toDispatch = pool.poll()) == null); // remove from head / block by busy spinning...
+        int attempt = 0;
+        while((toDispatch = pool.poll()) == null) waitStrategy.idle(attempt++); // remove from head / block...
         message.transferTo(toDispatch);
         queue.add(toDispatch); // add to tail...
+        waitStrategy.signal();
         return true;
     }
 
     @Override
     public boolean receive(E message) {
         E toReceive;
-        while((toReceive = queue.poll()) == null); // remove from head / block by busy spinning...
+        int attempt = 0;
+        while((toReceive = queue.poll()) == null) waitStrategy.idle(attempt++); // remove from head / block...
         toReceive.transferTo(message);
         pool.add(toReceive); // add to tail...
+        waitStrategy.signal();
         return true;
     }
+    
+    /**
+     * Poll the messages one by one, passing each one to the handler in place and returning it to the pool right after.
+     * Unlike the ring pipes there is no batched claim and no single release at the end: it is just a loop that
+     * receives without copying. This method never blocks.
+     */
+    @Override
+    public int drain(MessageHandler<E> handler, int maxMessages) {
+        int count = 0;
+        E toReceive;
+        while(count < maxMessages && (toReceive = queue.poll()) != null) {
+            try {
+                handler.onMessage(toReceive);
+            } finally {
+                pool.add(toReceive);
+            }
+            count++;
+        }
+        if (count > 0) waitStrategy.signal();
+        return count;
+    }
 }
\ No newline at end of file
@@ -43,7 +43,7 @@ public class LinkedNonBlockingPipe<E extends Transferable<E>> implements Pipe<E>
     private void init(int capacity, Class<E> transferable) {
         try {
             for(int i = 0; i < capacity; i++) {
-                pool.add(transferable.newInstance());
+                pool.add(transferable.getDeclaredConstructor().newInstance());
             }
         } catch(Exception e) {
             throw new RuntimeException(e);
@@ -77,4 +77,24 @@ public class LinkedNonBlockingPipe<E extends Transferable<E>> implements Pipe<E>
         pool.add(toReceive); // add to tail...
         return true;
     }
+    
+    /**
+     * Poll the messages one by one, passing each one to the handler in place and returning it to the pool right after.
+     * Unlike the ring pipes there is no batched claim and no single release at the end: it is just a loop that
+     * receives without copying. This method never blocks.
+     */
+    @Override
+    public int drain(MessageHandler<E> handler, int maxMessages) {
+        int count = 0;
+        E toReceive;
+        while(count < maxMessages && (toReceive = queue.poll()) != null) {
+            try {
+                handler.onMessage(toReceive);
+            } finally {
+                pool.add(toReceive);
+            }
+            count++;
+        }
+        return count;
+    }
 }
\ No newline at end of file
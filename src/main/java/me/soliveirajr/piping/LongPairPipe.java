@@ -0,0 +1,208 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping;
+
+import me.soliveirajr.piping.util.Sequence;
+import me.soliveirajr.piping.wait.WaitStrategy;
+
+/**
+ * Same as the {@link LongPipe} but each message is a pair of <code>long</code>s, stored next to each other in the
+ * ring, for example an operation and its value.
+ * 
+ * Without a {@link WaitStrategy} it never blocks: dispatch returns false if the pipe is full and receive returns
+ * false if it is empty. With a wait strategy both block until they can go ahead.
+ * 
+ * <pre>
+ * if (pipe.receive()) {
+ *     long op = pipe.first();
+ *     long value = pipe.second();
+ * }
+ * </pre>
+ * 
+ * Only one thread may dispatch and only one thread may receive.
+ */
+public class LongPairPipe {
+    
+    private static final int PAD = 8; // a cache line of longs on each side of the ring
+    
+    private final long[] ring;
+    private final int capacity;
+    private final int mask;
+    private final WaitStrategy waitStrategy;
+    private final Sequence head = new Sequence(); // next sequence to receive, written by the consumer
+    private final Sequence tail = new Sequence(); // next sequence to dispatch, written by the producer
+    
+    private long headCache = 0; // producer's last view of head
+    private long tailCache = 0; // consumer's last view of tail
+    private long first; // last pair received
+    private long second;
+    
+    public LongPairPipe(int capacity) {
+        this(capacity, null);
+    }
+    
+    /**
+     * @param capacity the capacity, rounded up to a power of two, at most 2^29 pairs so the ring fits in an array
+     * @param waitStrategy how to wait when the pipe is full or empty, or null to never block
+     */
+    public LongPairPipe(int capacity, WaitStrategy waitStrategy) {
+        if (capacity <= 0 || capacity > (1 << 29)) {
+            throw new IllegalArgumentException("Bad capacity: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size != capacity) size <<= 1; // round up to the next power of two...
+        this.ring = new long[2 * size + 2 * PAD];
+        this.capacity = size;
+        this.mask = size - 1;
+        this.waitStrategy = waitStrategy;
+    }
+    
+    /**
+     * Dispatch a pair of values
+     * 
+     * @param first the first value of the pair
+     * @param second the second value of the pair
+     * @return true if the pair was dispatched or false if the pipe is full
+     */
+    public boolean dispatch(long first, long second) {
+        final long t = tail.get();
+        if (t - headCache >= capacity) {
+            headCache = head.get();
+            if (t - headCache >= capacity) {
+                if (waitStrategy == null) return false; // full...
+                int attempt = 0;
+                while(t - (headCache = head.get()) >= capacity) waitStrategy.idle(attempt++); // block...
+            }
+        }
+        final int index = PAD + (((int) t & mask) << 1);
+        ring[index] = first;
+        ring[index + 1] = second;
+        tail.lazySet(t + 1);
+        if (waitStrategy != null) waitStrategy.signal();
+        return true;
+    }
+    
+    /**
+     * Dispatch a batch of pairs, publishing them only once
+     * 
+     * @param firsts the array holding the first values of the pairs
+     * @param seconds the array holding the second values of the pairs
+     * @param offset the index of the first pair to dispatch in both arrays
+     * @param length how many pairs to dispatch
+     * @return how many pairs were dispatched, which can be less than length if the pipe is full and does not block
+     */
+    public int dispatchBatch(long[] firsts, long[] seconds, int offset, int length) {
+        int count = 0;
+        int attempt = 0;
+        while(count < length) {
+            final long t = tail.get();
+            if (t + length - count - headCache > capacity) headCache = head.get();
+            int n = (int) Math.min(length - count, capacity - (t - headCache));
+            if (n == 0) {
+                if (waitStrategy == null) break; // full...
+                waitStrategy.idle(attempt++); // block...
+                continue;
+            }
+            for(int i = 0; i < n; i++) {
+                final int index = PAD + (((int) (t + i) & mask) << 1);
+                ring[index] = firsts[offset + count + i];
+                ring[index + 1] = seconds[offset + count + i];
+            }
+            tail.lazySet(t + n); // publish the whole batch at once...
+            if (waitStrategy != null) waitStrategy.signal();
+            count += n;
+            attempt = 0;
+        }
+        return count;
+    }
+    
+    /**
+     * Receive the next pair, which is then returned by {@link #first()} and {@link #second()}
+     * 
+     * @return true if a pair was received or false if the pipe is empty
+     */
+    public boolean receive() {
+        final long h = head.get();
+        if (h >= tailCache) {
+            tailCache = tail.get();
+            if (h >= tailCache) {
+                if (waitStrategy == null) return false; // empty...
+                int attempt = 0;
+                while(h >= (tailCache = tail.get())) waitStrategy.idle(attempt++); // block...
+            }
+        }
+        final int index = PAD + (((int) h & mask) << 1);
+        first = ring[index];
+        second = ring[index + 1];
+        head.lazySet(h + 1);
+        if (waitStrategy != null) waitStrategy.signal();
+        return true;
+    }
+    
+    /**
+     * The first value of the last pair received
+     * 
+     * @return the value
+     */
+    public long first() {
+        return first;
+    }
+    
+    /**
+     * The second value of the last pair received
+     * 
+     * @return the value
+     */
+    public long second() {
+        return second;
+    }
+    
+    /**
+     * Receive all available pairs, up to a maximum, passing each one to the handler and releasing them back to the
+     * pipe only once at the end. This method never blocks.
+     * 
+     * @param handler the handler that will process each pair
+     * @param maxPairs the maximum number of pairs to receive
+     * @return how many pairs were received, zero if the pipe is empty
+     */
+    public int drain(LongPairHandler handler, int maxPairs) {
+        final long h = head.get();
+        if (h + maxPairs > tailCache) tailCache = tail.get();
+        int count = (int) Math.min(maxPairs, tailCache - h);
+        int i = 0;
+        try {
+            while(i < count) {
+                final int index = PAD + (((int) (h + i++) & mask) << 1);
+                handler.onLongs(ring[index], ring[index + 1]);
+            }
+        } finally {
+            if (i > 0) {
+                head.lazySet(h + i); // give the whole batch back to the producer at once...
+                if (waitStrategy != null) waitStrategy.signal();
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * The number of pairs this pipe can hold, which is the requested capacity rounded up to a power of two
+     * 
+     * @return the capacity of this pipe
+     */
+    public int capacity() {
+        return capacity;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,197 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping;
+
+import me.soliveirajr.piping.util.Sequence;
+import me.soliveirajr.piping.wait.WaitStrategy;
+
+/**
+ * A lock-free single-producer/single-consumer pipe of <code>long</code>s, stored directly in a <code>long[]</code>
+ * ring, for messages that fit in a long, like an operation encoded with its value. There are no message objects, so
+ * no pointer chasing and no <code>transferTo</code> calls.
+ * 
+ * Without a {@link WaitStrategy} it never blocks: dispatch returns false if the pipe is full and receive returns
+ * false if it is empty. With a wait strategy both block until they can go ahead.
+ * 
+ * <pre>
+ * if (pipe.receive()) {
+ *     long value = pipe.value();
+ * }
+ * </pre>
+ * 
+ * Only one thread may dispatch and only one thread may receive.
+ */
+public class LongPipe {
+    
+    private static final int PAD = 8; // a cache line of longs on each side of the ring
+    
+    private final long[] ring;
+    private final int capacity;
+    private final int mask;
+    private final WaitStrategy waitStrategy;
+    private final Sequence head = new Sequence(); // next sequence to receive, written by the consumer
+    private final Sequence tail = new Sequence(); // next sequence to dispatch, written by the producer
+    
+    private long headCache = 0; // producer's last view of head
+    private long tailCache = 0; // consumer's last view of tail
+    private long value; // last value received
+    
+    public LongPipe(int capacity) {
+        this(capacity, null);
+    }
+    
+    /**
+     * @param capacity the capacity, rounded up to a power of two
+     * @param waitStrategy how to wait when the pipe is full or empty, or null to never block
+     */
+    public LongPipe(int capacity, WaitStrategy waitStrategy) {
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Bad capacity: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size != capacity) size <<= 1; // round up to the next power of two...
+        this.ring = new long[size + 2 * PAD];
+        this.capacity = size;
+        this.mask = size - 1;
+        this.waitStrategy = waitStrategy;
+    }
+    
+    /**
+     * Dispatch a value
+     * 
+     * @param value the value
+     * @return true if the value was dispatched or false if the pipe is full
+     */
+    public boolean dispatch(long value) {
+        final long t = tail.get();
+        if (t - headCache >= capacity) {
+            headCache = head.get();
+            if (t - headCache >= capacity) {
+                if (waitStrategy == null) return false; // full...
+                int attempt = 0;
+                while(t - (headCache = head.get()) >= capacity) waitStrategy.idle(attempt++); // block...
+            }
+        }
+        ring[PAD + ((int) t & mask)] = value;
+        tail.lazySet(t + 1);
+        if (waitStrategy != null) waitStrategy.signal();
+        return true;
+    }
+    
+    /**
+     * Dispatch a batch of values, publishing them only once
+     * 
+     * @param values the array holding the values to dispatch
+     * @param offset the index of the first value to dispatch
+     * @param length how many values to dispatch
+     * @return how many values were dispatched, which can be less than length if the pipe is full and does not block
+     */
+    public int dispatchBatch(long[] values, int offset, int length) {
+        int count = 0;
+        int attempt = 0;
+        while(count < length) {
+            final long t = tail.get();
+            if (t + length - count - headCache > capacity) headCache = head.get();
+            int n = (int) Math.min(length - count, capacity - (t - headCache));
+            if (n == 0) {
+                if (waitStrategy == null) break; // full...
+                waitStrategy.idle(attempt++); // block...
+                continue;
+            }
+            for(int i = 0; i < n; i++) {
+                ring[PAD + ((int) (t + i) & mask)] = values[offset + count + i];
+            }
+            tail.lazySet(t + n); // publish the whole batch at once...
+            if (waitStrategy != null) waitStrategy.signal();
+            count += n;
+            attempt = 0;
+        }
+        return count;
+    }
+    
+    /**
+     * Receive the next value, which is then returned by {@link #value()}
+     * 
+     * @return true if a value was received or false if the pipe is empty
+     */
+    public boolean receive() {
+        final long h = head.get();
+        if (h >= tailCache) {
+            tailCache = tail.get();
+            if (h >= tailCache) {
+                if (waitStrategy == null) return false; // empty...
+                int attempt = 0;
+                while(h >= (tailCache = tail.get())) waitStrategy.idle(attempt++); // block...
+            }
+        }
+        value = ring[PAD + ((int) h & mask)];
+        head.lazySet(h + 1);
+        if (waitStrategy != null) waitStrategy.signal();
+        return true;
+    }
+    
+    /**
+     * The last value received
+     * 
+     * @return the value
+     */
+    public long value() {
+        return value;
+    }
+    
+    /**
+     * Receive the next value
+     * 
+     * @param emptyValue what to return if the pipe is empty
+     * @return the value or emptyValue if the pipe is empty
+     */
+    public long receiveLong(long emptyValue) {
+        return receive() ? value : emptyValue;
+    }
+    
+    /**
+     * Receive all available values, up to a maximum, passing each one to the handler and releasing them back to the
+     * pipe only once at the end. This method never blocks.
+     * 
+     * @param handler the handler that will process each value
+     * @param maxValues the maximum number of values to receive
+     * @return how many values were received, zero if the pipe is empty
+     */
+    public int drain(LongHandler handler, int maxValues) {
+        final long h = head.get();
+        if (h + maxValues > tailCache) tailCache = tail.get();
+        int count = (int) Math.min(maxValues, tailCache - h);
+        int i = 0;
+        try {
+            while(i < count) handler.onLong(ring[PAD + ((int) (h + i++) & mask)]);
+        } finally {
+            if (i > 0) {
+                head.lazySet(h + i); // give the whole batch back to the producer at once...
+                if (waitStrategy != null) waitStrategy.signal();
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * The number of values this pipe can hold, which is the requested capacity rounded up to a power of two
+     * 
+     * @return the capacity of this pipe
+     */
+    public int capacity() {
+        return capacity;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,72 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+
+import me.soliveirajr.piping.util.Builder;
+
+/**
+ * An {@link OffHeapPipe} whose region of memory is a memory-mapped file, so that two processes on the same machine
+ * can exchange messages through shared memory. The header and the sequences live in the mapped file too, so both
+ * sides just have to open the same file with the same capacity and message size. The first one to open it writes
+ * the header, and the other one attaches to it.
+ * 
+ * Only one thread (in one process) may dispatch and only one thread (in one process) may receive.
+ */
+public class MappedFilePipe<E extends Flyweight<E>> extends OffHeapPipe<E> {
+    
+    private final File file;
+    
+    public MappedFilePipe(File file, int capacity, Class<E> transferable) {
+        this(file, capacity, newInstance(transferable), newInstance(transferable));
+    }
+    
+    public MappedFilePipe(File file, int capacity, Builder<E> transferable) {
+        this(file, capacity, transferable.newInstance(), transferable.newInstance());
+    }
+    
+    private MappedFilePipe(File file, int capacity, E producerView, E consumerView) {
+        super(map(file, capacity, producerView.size()), capacity, producerView, consumerView, false);
+        this.file = file;
+    }
+    
+    private static ByteBuffer map(File file, int capacity, int slotSize) {
+        int size = regionSize(capacity, slotSize);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+            MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_WRITE, 0, size); // stays mapped after the channel is closed...
+            FileLock lock = channel.lock(); // so that only one process writes the header...
+            try {
+                if (!isFormatted(region)) format(region, capacity, slotSize);
+            } finally {
+                lock.release();
+            }
+            return region;
+        } catch(IOException e) {
+            throw new RuntimeException("Cannot map pipe file: " + file, e);
+        }
+    }
+    
+    public File getFile() {
+        return file;
+    }
+}
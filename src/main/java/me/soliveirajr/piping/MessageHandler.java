@@ -0,0 +1,32 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping;
+
+/**
+ * A callback to process messages in place as they are drained from a pipe.
+ *
+ * @param <E> the message you want to process
+ */
+public interface MessageHandler<E> {
+    
+    /**
+     * Process a message. The message instance belongs to the pipe and is only valid until this method returns, so
+     * copy whatever you need out of it and never keep a reference to it.
+     * 
+     * @param message the message to process
+     */
+    public void onMessage(E message);
+}
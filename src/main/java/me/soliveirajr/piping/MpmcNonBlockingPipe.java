@@ -0,0 +1,163 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import me.soliveirajr.piping.util.Builder;
+import me.soliveirajr.piping.util.Sequence;
+
+/**
+ * A lock-free multi-producer/multi-consumer pipe backed by a preallocated ring of slots. It never blocks.
+ * If there isn't a message to be received, the receive method returns false. And if there isn't space to send
+ * a message the dispatch method returns false.
+ * 
+ * Each slot carries its own sequence number (Dmitry Vyukov's bounded MPMC queue). Producers and consumers
+ * claim a slot with a single CAS on the tail or head and then hand it over by advancing the slot sequence,
+ * so the pipe is bounded by its preallocated slots and messages are received in the order their slots were
+ * claimed. The capacity is at least two slots.
+ * 
+ * Any number of threads may dispatch and any number of threads may receive.
+ */
+public class MpmcNonBlockingPipe<E extends Transferable<E>> extends AbstractRingPipe<E> {
+    
+    protected final Sequence head = new Sequence(); // next sequence to be claimed by a consumer
+    protected final Sequence tail = new Sequence(); // next sequence to be claimed by a producer
+    protected final AtomicLongArray sequences; // per slot: equal to the sequence when free, sequence + 1 when full
+    
+    public MpmcNonBlockingPipe(int capacity, Class<E> transferable) {
+        super(Math.max(2, capacity), transferable); // with a single slot free and full would look the same...
+        this.sequences = newSequences(this.capacity);
+    }
+    
+    public MpmcNonBlockingPipe(int capacity, Builder<E> transferable) {
+        super(Math.max(2, capacity), transferable); // with a single slot free and full would look the same...
+        this.sequences = newSequences(this.capacity);
+    }
+    
+    private static AtomicLongArray newSequences(int capacity) {
+        AtomicLongArray sequences = new AtomicLongArray(capacity);
+        for(int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        return sequences;
+    }
+    
+    @Override
+    public long claim() {
+        long t = tail.get();
+        while(true) {
+            long diff = sequences.get((int) t & mask) - t;
+            if (diff == 0) {
+                if (tail.compareAndSet(t, t + 1)) return t; // claimed...
+                t = tail.get();
+            } else if (diff < 0) {
+                return -1; // full...
+            } else {
+                t = tail.get(); // another producer got there first...
+            }
+        }
+    }
+    
+    @Override
+    public void publish(long sequence) {
+        sequences.lazySet((int) sequence & mask, sequence + 1);
+    }
+    
+    /**
+     * Claims the next message for this consumer, so no other consumer will see it
+     */
+    @Override
+    public long peek() {
+        long h = head.get();
+        while(true) {
+            long diff = sequences.get((int) h & mask) - (h + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(h, h + 1)) return h; // claimed...
+                h = head.get();
+            } else if (diff < 0) {
+                return -1; // empty...
+            } else {
+                h = head.get(); // another consumer got there first...
+            }
+        }
+    }
+    
+    @Override
+    public void release(long sequence) {
+        sequences.lazySet((int) sequence & mask, sequence + capacity); // free the slot for the next lap...
+    }
+    
+    @Override
+    public int dispatchBatch(E[] messages, int offset, int length) {
+        if (length <= 0) return 0;
+        long t = tail.get();
+        int count;
+        while(true) {
+            long diff = sequences.get((int) t & mask) - t;
+            if (diff < 0) return 0; // full...
+            if (diff > 0) {
+                t = tail.get(); // another producer got there first...
+                continue;
+            }
+            count = 1;
+            while(count < length && sequences.get((int) (t + count) & mask) == t + count) count++;
+            if (tail.compareAndSet(t, t + count)) break; // claim the whole batch at once...
+            t = tail.get();
+        }
+        for(int i = 0; i < count; i++) {
+            int index = (int) (t + i) & mask;
+            messages[offset + i].transferTo(slots[index]);
+            sequences.lazySet(index, t + i + 1); // publish...
+        }
+        return count;
+    }
+    
+    @Override
+    public int drain(MessageHandler<E> handler, int maxMessages) {
+        if (maxMessages <= 0) return 0;
+        long h = head.get();
+        int count;
+        while(true) {
+            long diff = sequences.get((int) h & mask) - (h + 1);
+            if (diff < 0) return 0; // empty...
+            if (diff > 0) {
+                h = head.get(); // another consumer got there first...
+                continue;
+            }
+            count = 1;
+            while(count < maxMessages && sequences.get((int) (h + count) & mask) == h + count + 1) count++;
+            if (head.compareAndSet(h, h + count)) break; // claim the whole batch at once...
+            h = head.get();
+        }
+        int i = 0;
+        try {
+            for(; i < count; i++) {
+                int index = (int) (h + i) & mask;
+                try {
+                    handler.onMessage(slots[index]);
+                } finally {
+                    sequences.lazySet(index, h + i + capacity); // free the slot for the next lap...
+                }
+            }
+        } finally {
+            for(i++; i < count; i++) { // the batch is ours, so if the handler blew up free the rest of it...
+                sequences.lazySet((int) (h + i) & mask, h + i + capacity);
+            }
+        }
+        return count;
+    }
+}
\ No newline at end of file
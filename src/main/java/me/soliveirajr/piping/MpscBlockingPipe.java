@@ -0,0 +1,108 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping;
+
+import me.soliveirajr.piping.util.Builder;
+import me.soliveirajr.piping.wait.BusySpinWaitStrategy;
+import me.soliveirajr.piping.wait.WaitStrategy;
+
+/**
+ * A lock-free multi-producer/single-consumer pipe backed by a preallocated ring of slots that blocks until there
+ * is space available for a message to be sent and until there is a message available to be received. How it waits is
+ * decided by its {@link WaitStrategy}, which by default busy spins.
+ * 
+ * Any number of threads may dispatch but only one thread may receive.
+ */
+public class MpscBlockingPipe<E extends Transferable<E>> extends MpscNonBlockingPipe<E> {
+    
+    private final WaitStrategy waitStrategy;
+    
+    public MpscBlockingPipe(int capacity, Class<E> transferable) {
+        this(capacity, transferable, new BusySpinWaitStrategy());
+    }
+    
+    public MpscBlockingPipe(int capacity, Builder<E> transferable) {
+        this(capacity, transferable, new BusySpinWaitStrategy());
+    }
+    
+    public MpscBlockingPipe(int capacity, Class<E> transferable, WaitStrategy waitStrategy) {
+        super(capacity, transferable);
+        this.waitStrategy = waitStrategy;
+    }
+    
+    public MpscBlockingPipe(int capacity, Builder<E> transferable, WaitStrategy waitStrategy) {
+        super(capacity, transferable);
+        this.waitStrategy = waitStrategy;
+    }
+    
+    /**
+     * Blocks until a slot is available, so it never returns -1
+     */
+    @Override
+    public long claim() {
+        long sequence;
+        int attempt = 0;
+        while((sequence = super.claim()) < 0) waitStrategy.idle(attempt++); // block...
+        return sequence;
+    }
+    
+    @Override
+    public void publish(long sequence) {
+        super.publish(sequence);
+        waitStrategy.signal();
+    }
+    
+    /**
+     * Blocks until a message is available, so it never returns -1
+     */
+    @Override
+    public long peek() {
+        long sequence;
+        int attempt = 0;
+        while((sequence = super.peek()) < 0) waitStrategy.idle(attempt++); // block...
+        return sequence;
+    }
+    
+    @Override
+    public void release(long sequence) {
+        super.release(sequence);
+        waitStrategy.signal();
+    }
+    
+    @Override
+    public int dispatchBatch(E[] messages, int offset, int length) {
+        int count = 0;
+        int attempt = 0;
+        while(count < length) {
+            int dispatched = super.dispatchBatch(messages, offset + count, length - count);
+            if (dispatched == 0) {
+                waitStrategy.idle(attempt++); // block...
+            } else {
+                count += dispatched;
+                attempt = 0;
+                waitStrategy.signal();
+            }
+        }
+        return count;
+    }
+    
+    @Override
+    public int drain(MessageHandler<E> handler, int maxMessages) {
+        int count = super.drain(handler, maxMessages);
+        if (count > 0) waitStrategy.signal();
+        return count;
+    }
+}
\ No newline at end of file
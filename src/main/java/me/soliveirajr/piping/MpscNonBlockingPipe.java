@@ -0,0 +1,128 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import me.soliveirajr.piping.util.Builder;
+import me.soliveirajr.piping.util.Sequence;
+
+/**
+ * A lock-free multi-producer/single-consumer pipe backed by a preallocated ring of slots. It never blocks.
+ * If there isn't a message to be received, the receive method returns false. And if there isn't space to send
+ * a message the dispatch method returns false.
+ * 
+ * Producers claim a sequence with a CAS on the tail and then mark their slot as published, so a slow producer
+ * never makes the others wait. The consumer side is wait-free: it checks if its next slot was published and
+ * reads it, without any CAS or retry loop.
+ * 
+ * Any number of threads may dispatch but only one thread may receive.
+ */
+public class MpscNonBlockingPipe<E extends Transferable<E>> extends AbstractRingPipe<E> {
+    
+    protected final Sequence head = new Sequence(); // next sequence to receive, written by the consumer
+    protected final Sequence tail = new Sequence(); // next sequence to be claimed by a producer
+    protected final Sequence headCache = new Sequence(); // producers' last view of head
+    protected final AtomicLongArray published; // the sequence last published in each slot
+    
+    public MpscNonBlockingPipe(int capacity, Class<E> transferable) {
+        super(capacity, transferable);
+        this.published = newPublished(this.capacity);
+    }
+    
+    public MpscNonBlockingPipe(int capacity, Builder<E> transferable) {
+        super(capacity, transferable);
+        this.published = newPublished(this.capacity);
+    }
+    
+    private static AtomicLongArray newPublished(int capacity) {
+        AtomicLongArray published = new AtomicLongArray(capacity);
+        for(int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+        return published;
+    }
+    
+    @Override
+    public long claim() {
+        long t;
+        do {
+            t = tail.get();
+            if (t - headCache.get() >= capacity) {
+                long h = head.get();
+                if (t - h >= capacity) return -1; // full...
+                headCache.lazySet(h);
+            }
+        } while(!tail.compareAndSet(t, t + 1));
+        return t;
+    }
+    
+    @Override
+    public void publish(long sequence) {
+        published.lazySet((int) sequence & mask, sequence);
+    }
+    
+    @Override
+    public long peek() {
+        final long h = head.get();
+        if (published.get((int) h & mask) != h) return -1; // empty (or the producer has not finished writing)...
+        return h;
+    }
+    
+    @Override
+    public void release(long sequence) {
+        head.lazySet(sequence + 1); // give the slot back to the producers...
+    }
+    
+    @Override
+    public int dispatchBatch(E[] messages, int offset, int length) {
+        long t;
+        int count;
+        do {
+            t = tail.get();
+            long h = headCache.get();
+            if (t + length - h > capacity) {
+                h = head.get();
+                headCache.lazySet(h);
+            }
+            count = (int) Math.min(length, capacity - (t - h));
+            if (count <= 0) return 0; // full...
+        } while(!tail.compareAndSet(t, t + count)); // claim the whole batch at once...
+        for(int i = 0; i < count; i++) {
+            int index = (int) (t + i) & mask;
+            messages[offset + i].transferTo(slots[index]);
+            published.lazySet(index, t + i); // publish...
+        }
+        return count;
+    }
+    
+    @Override
+    public int drain(MessageHandler<E> handler, int maxMessages) {
+        final long h = head.get();
+        int i = 0;
+        try {
+            while(i < maxMessages) {
+                int index = (int) (h + i) & mask;
+                if (published.get(index) != h + i) break;
+                i++;
+                handler.onMessage(slots[index]);
+            }
+        } finally {
+            if (i > 0) head.lazySet(h + i); // give the whole batch back to the producers at once...
+        }
+        return i;
+    }
+}
\ No newline at end of file
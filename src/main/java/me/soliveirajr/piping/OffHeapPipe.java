@@ -0,0 +1,285 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import me.soliveirajr.piping.util.Builder;
+
+/**
+ * A lock-free single-producer/single-consumer pipe whose slots and sequences all live in a single off-heap region of
+ * memory (a direct {@link ByteBuffer}). Messages are {@link Flyweight}s: the pipe keeps just two of them, one for the
+ * producer and one for the consumer, and points them to the slot being written or read. So no message data lives on
+ * the Java heap and the garbage collector has nothing to scan. It never blocks. If there isn't a message to be
+ * received, the receive method returns false. And if there isn't space to send a message the dispatch method returns
+ * false.
+ * 
+ * Besides dispatch and receive, the producer can {@link #claim()} a slot, write into it and {@link #publish()} it,
+ * and the consumer can {@link #peek()} at a slot, read from it and {@link #release()} it, without any copying.
+ * 
+ * Only one thread may dispatch and only one thread may receive.
+ */
+public class OffHeapPipe<E extends Flyweight<E>> implements Pipe<E> {
+    
+    protected static final int MAGIC = 0x50495045; // "PIPE"
+    protected static final int MAGIC_OFFSET = 0;
+    protected static final int CAPACITY_OFFSET = 8;
+    protected static final int SLOT_SIZE_OFFSET = 12;
+    protected static final int TAIL_OFFSET = 128; // each sequence in its own pair of cache lines...
+    protected static final int HEAD_OFFSET = 256;
+    protected static final int HEADER_SIZE = 384;
+    
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    
+    protected final ByteBuffer region;
+    protected final int capacity;
+    protected final int mask;
+    protected final int slotSize;
+    
+    private final E producerView;
+    private final E consumerView;
+    
+    private long headCache; // producer's last view of head
+    private long tailCache; // consumer's last view of tail
+    private long claimed = -1;
+    private long peeked = -1;
+    
+    public OffHeapPipe(int capacity, Class<E> transferable) {
+        this(capacity, newInstance(transferable), newInstance(transferable));
+    }
+    
+    public OffHeapPipe(int capacity, Builder<E> transferable) {
+        this(capacity, transferable.newInstance(), transferable.newInstance());
+    }
+    
+    private OffHeapPipe(int capacity, E producerView, E consumerView) {
+        this(allocate(regionSize(capacity, producerView.size())), capacity, producerView, consumerView, true);
+    }
+    
+    /**
+     * Creates a pipe over an existing region of memory
+     * 
+     * @param region the region, at least {@link #regionSize(int, int)} bytes long and aligned to 8 bytes
+     * @param capacity the number of slots
+     * @param producerView the flyweight used by the producer
+     * @param consumerView the flyweight used by the consumer
+     * @param format true to write a fresh header and sequences to the region, false to use the ones already there
+     */
+    protected OffHeapPipe(ByteBuffer region, int capacity, E producerView, E consumerView, boolean format) {
+        this.capacity = powerOfTwo(capacity);
+        this.mask = this.capacity - 1;
+        this.slotSize = align(producerView.size());
+        this.region = region.order(ByteOrder.nativeOrder());
+        if (region.alignmentOffset(0, 8) != 0) {
+            throw new IllegalArgumentException("Region is not aligned to 8 bytes!");
+        }
+        if (region.capacity() < regionSize(this.capacity, slotSize)) {
+            throw new IllegalArgumentException("Region is too small: " + region.capacity());
+        }
+        this.producerView = producerView;
+        this.consumerView = consumerView;
+        if (format) format(region, this.capacity, slotSize);
+        if (!isFormatted(region)) {
+            throw new IllegalStateException("Region does not hold a pipe!");
+        }
+        if (region.getInt(CAPACITY_OFFSET) != this.capacity || region.getInt(SLOT_SIZE_OFFSET) != slotSize) {
+            throw new IllegalStateException("Region holds a pipe with capacity=" + region.getInt(CAPACITY_OFFSET) 
+                                            + " and slotSize=" + region.getInt(SLOT_SIZE_OFFSET));
+        }
+        this.headCache = head();
+        this.tailCache = tail();
+    }
+    
+    /**
+     * Write a fresh header and sequences to a region of memory
+     */
+    protected static void format(ByteBuffer region, int capacity, int slotSize) {
+        region.order(ByteOrder.nativeOrder());
+        region.putInt(CAPACITY_OFFSET, powerOfTwo(capacity));
+        region.putInt(SLOT_SIZE_OFFSET, align(slotSize));
+        LONGS.setRelease(region, TAIL_OFFSET, 0L);
+        LONGS.setRelease(region, HEAD_OFFSET, 0L);
+        LONGS.setVolatile(region, MAGIC_OFFSET, (long) MAGIC); // magic goes last, once everything else is there...
+    }
+    
+    /**
+     * Check if a region of memory already holds a pipe
+     */
+    protected static boolean isFormatted(ByteBuffer region) {
+        return (long) LONGS.getVolatile(region.order(ByteOrder.nativeOrder()), MAGIC_OFFSET) == MAGIC;
+    }
+    
+    protected static <E> E newInstance(Class<E> transferable) {
+        try {
+            return transferable.getDeclaredConstructor().newInstance();
+        } catch(Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    private static ByteBuffer allocate(int size) {
+        if (size > Integer.MAX_VALUE - 64) {
+            throw new IllegalArgumentException("Region is too big: " + size);
+        }
+        return ByteBuffer.allocateDirect(size + 64).alignedSlice(64);
+    }
+    
+    private static int powerOfTwo(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Bad capacity: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        return size == capacity ? size : size << 1;
+    }
+    
+    private static int align(int slotSize) {
+        return (slotSize + 7) & ~7;
+    }
+    
+    /**
+     * The number of bytes of memory needed by a pipe
+     * 
+     * @param capacity the number of slots
+     * @param slotSize the size of each message in bytes
+     * @return the size of the region in bytes
+     * @throws IllegalArgumentException if the region would not fit in a single buffer
+     */
+    public static int regionSize(int capacity, int slotSize) {
+        long size = HEADER_SIZE + (long) powerOfTwo(capacity) * align(slotSize);
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Region is too big: capacity=" + capacity + " slotSize=" + slotSize);
+        }
+        return (int) size;
+    }
+    
+    private long tail() {
+        return (long) LONGS.getAcquire(region, TAIL_OFFSET);
+    }
+    
+    private long head() {
+        return (long) LONGS.getAcquire(region, HEAD_OFFSET);
+    }
+    
+    private int offsetOf(long sequence) {
+        return (int) (HEADER_SIZE + (sequence & mask) * (long) slotSize); // fits, the constructor checked regionSize...
+    }
+    
+    /**
+     * Claim the next free slot so it can be written in place
+     * 
+     * @return the producer flyweight pointing to the slot or null if the pipe is full
+     */
+    public E claim() {
+        final long t = tail();
+        if (t - headCache >= capacity) {
+            headCache = head();
+            if (t - headCache >= capacity) return null; // full...
+        }
+        claimed = t;
+        producerView.wrap(region, offsetOf(t));
+        return producerView;
+    }
+    
+    /**
+     * Make the claimed slot visible to the consumer
+     */
+    public void publish() {
+        LONGS.setRelease(region, TAIL_OFFSET, claimed + 1);
+    }
+    
+    /**
+     * Get the next message so it can be read in place
+     * 
+     * @return the consumer flyweight pointing to the message or null if the pipe is empty
+     */
+    public E peek() {
+        final long h = head();
+        if (h >= tailCache) {
+            tailCache = tail();
+            if (h >= tailCache) return null; // empty...
+        }
+        peeked = h;
+        consumerView.wrap(region, offsetOf(h));
+        return consumerView;
+    }
+    
+    /**
+     * Give the peeked slot back to the producer
+     */
+    public void release() {
+        LONGS.setRelease(region, HEAD_OFFSET, peeked + 1);
+    }
+    
+    @Override
+    public boolean dispatch(E message) {
+        E slot = claim();
+        if (slot == null) return false;
+        message.transferTo(slot);
+        publish();
+        return true;
+    }
+    
+    @Override
+    public boolean receive(E message) {
+        E slot = peek();
+        if (slot == null) return false;
+        slot.transferTo(message);
+        release();
+        return true;
+    }
+    
+    @Override
+    public int dispatchBatch(E[] messages, int offset, int length) {
+        final long t = tail();
+        if (t + length - headCache > capacity) headCache = head();
+        int count = (int) Math.min(length, capacity - (t - headCache));
+        for(int i = 0; i < count; i++) {
+            producerView.wrap(region, offsetOf(t + i));
+            messages[offset + i].transferTo(producerView);
+        }
+        if (count > 0) LONGS.setRelease(region, TAIL_OFFSET, t + count); // publish the whole batch at once...
+        return count;
+    }
+    
+    @Override
+    public int drain(MessageHandler<E> handler, int maxMessages) {
+        final long h = head();
+        if (h + maxMessages > tailCache) tailCache = tail();
+        int count = (int) Math.min(maxMessages, tailCache - h);
+        int i = 0;
+        try {
+            while(i < count) {
+                consumerView.wrap(region, offsetOf(h + i++));
+                handler.onMessage(consumerView);
+            }
+        } finally {
+            if (i > 0) LONGS.setRelease(region, HEAD_OFFSET, h + i); // give the whole batch back at once...
+        }
+        return count;
+    }
+    
+    /**
+     * The number of slots in this pipe, which is the requested capacity rounded up to a power of two
+     * 
+     * @return the capacity of this pipe
+     */
+    public int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,116 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping;
+
+import me.soliveirajr.piping.util.Builder;
+
+/**
+ * A group of pipes that routes each message to one of its partitions by the key of the message, so that the state
+ * owned by a single consumer thread can be sharded across many consumer threads, one for each partition. Messages
+ * with the same key always go to the same partition, so the order of the messages of a key is kept.
+ * 
+ * Each partition is a pipe created by the given builder. To have many producers use multi-producer pipes, like the
+ * {@link MpscBlockingPipe}. The number of partitions can be changed with {@link #rebalance(int)} until the pipe is used.
+ */
+public class PartitionedPipe<E extends Transferable<E>> {
+    
+    private final KeyExtractor<E> keyExtractor;
+    private final Builder<Pipe<E>> pipes;
+    private Pipe<E>[] partitions;
+    private volatile boolean started = false;
+    
+    public PartitionedPipe(int partitions, KeyExtractor<E> keyExtractor, Builder<Pipe<E>> pipes) {
+        this.keyExtractor = keyExtractor;
+        this.pipes = pipes;
+        this.partitions = newPartitions(partitions);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Pipe<E>[] newPartitions(int count) {
+        if (count <= 0) throw new IllegalArgumentException("Bad number of partitions: " + count);
+        Pipe<E>[] partitions = (Pipe<E>[]) new Pipe<?>[count];
+        for(int i = 0; i < count; i++) {
+            partitions[i] = pipes.newInstance();
+        }
+        return partitions;
+    }
+    
+    /**
+     * Change the number of partitions, for example to the number of available cores. It can only be done before the
+     * first dispatch and before any partition is handed to a consumer.
+     * 
+     * @param partitions the new number of partitions
+     */
+    public synchronized void rebalance(int partitions) {
+        if (started) throw new IllegalStateException("Cannot rebalance a partitioned pipe that is already being used!");
+        if (partitions != this.partitions.length) this.partitions = newPartitions(partitions);
+    }
+    
+    /**
+     * Dispatch a message to the partition of its key
+     * 
+     * @param message the message to dispatch
+     * @return true if the message was dispatched or false if its partition is full
+     */
+    public boolean dispatch(E message) {
+        if (!started) start();
+        return partitions[partitionOf(message)].dispatch(message);
+    }
+    
+    /**
+     * Dispatch a batch of messages, each one to the partition of its key
+     * 
+     * @param messages the array holding the messages to dispatch
+     * @param offset the index of the first message to dispatch
+     * @param length how many messages to dispatch
+     * @return how many messages were dispatched, which can be less than length if a partition is full
+     */
+    public int dispatchBatch(E[] messages, int offset, int length) {
+        int count = 0;
+        while(count < length && dispatch(messages[offset + count])) count++; // stop at the first full partition to keep the order...
+        return count;
+    }
+    
+    /**
+     * The partition a message goes to
+     * 
+     * @param message the message
+     * @return the index of its partition
+     */
+    public int partitionOf(E message) {
+        int hash = Long.hashCode(keyExtractor.keyOf(message)) * 0x9E3779B9; // spread sequential keys...
+        return Math.floorMod(hash ^ (hash >>> 16), partitions.length);
+    }
+    
+    /**
+     * The pipe of a partition, from which its consumer thread receives
+     * 
+     * @param index the index of the partition
+     * @return the pipe of the partition
+     */
+    public Pipe<E> getPartition(int index) {
+        if (!started) start();
+        return partitions[index];
+    }
+    
+    public int getPartitions() {
+        return partitions.length;
+    }
+    
+    private synchronized void start() {
+        started = true; // no more rebalancing...
+    }
+}
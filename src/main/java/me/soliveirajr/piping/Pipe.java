@@ -37,4 +37,35 @@ public interface Pipe<E extends Transferable<E>> {
      * @return true if the message was received or false if the pipe is empty
      */
     public boolean receive(E message);
+    
+    /**
+     * Dispatch a batch of messages through the pipe, paying for the publication only once for the whole batch. By
+     * default it just dispatches the messages one by one, and the ring pipes override it to publish them at once.
+     * 
+     * @param messages the array holding the messages to dispatch
+     * @param offset the index of the first message to dispatch
+     * @param length how many messages to dispatch
+     * @return how many messages were dispatched, which can be less than length if the pipe is full
+     */
+    public default int dispatchBatch(E[] messages, int offset, int length) {
+        int count = 0;
+        while(count < length && dispatch(messages[offset + count])) count++;
+        return count;
+    }
+    
+    /**
+     * Receive all available messages, up to a maximum, passing each one to the handler in place and releasing them
+     * back to the pipe only once at the end. This method never blocks. If the handler throws, the exception is
+     * propagated and the message being handled counts as received.
+     * 
+     * By default it throws {@link UnsupportedOperationException}. There is no message to receive into through
+     * {@link #receive(Transferable)}, so a pipe must override it to hand out its own messages.
+     * 
+     * @param handler the handler that will process each message
+     * @param maxMessages the maximum number of messages to receive
+     * @return how many messages were received, zero if the pipe is empty
+     */
+    public default int drain(MessageHandler<E> handler, int maxMessages) {
+        throw new UnsupportedOperationException(getClass().getName() + " cannot drain its messages in place");
+    }
 }
\ No newline at end of file
@@ -0,0 +1,214 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lets one consumer thread wait on many pipes, like the NIO <code>Selector</code> does for channels. Each registered
+ * pipe has a bit in a shared dirty bitmap that its producers set when they dispatch, so the consumer only visits the
+ * pipes that have messages, draining each one through its own handler, and parks when all of them are empty.
+ * 
+ * <pre>
+ * PipeSelector selector = new PipeSelector(64);
+ * Pipe&lt;OpMessage&gt; ops = selector.register(new SpscNonBlockingPipe&lt;OpMessage&gt;(1024, OpMessage.class), opHandler);
+ * Pipe&lt;ConfigMessage&gt; configs = selector.register(new MpscNonBlockingPipe&lt;ConfigMessage&gt;(64, ConfigMessage.class), configHandler);
+ * 
+ * // producers dispatch to the pipes returned by register...
+ * 
+ * while(running) {
+ *     selector.select(256); // drains the pipes with messages, or parks until there is one
+ * }
+ * </pre>
+ * 
+ * When the bit of a pipe is already set a dispatch costs an extra memory fence, otherwise an atomic instruction. The
+ * registered pipes must not block. Only one thread may select.
+ */
+public class PipeSelector {
+    
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+    
+    private final long[] dirty;
+    private final int maxPipes;
+    private final int spinTries;
+    private volatile Registration<?>[] registrations = new Registration<?>[0];
+    private volatile Thread waiter; // only set while the consumer is parked
+    private volatile boolean woken = false;
+    
+    public PipeSelector(int maxPipes) {
+        this(maxPipes, 100);
+    }
+    
+    /**
+     * @param maxPipes the maximum number of pipes that can be registered
+     * @param spinTries how many times select checks the pipes again before parking
+     */
+    public PipeSelector(int maxPipes, int spinTries) {
+        if (maxPipes <= 0) throw new IllegalArgumentException("Bad maxPipes: " + maxPipes);
+        this.dirty = new long[(maxPipes + 63) >>> 6];
+        this.maxPipes = maxPipes;
+        this.spinTries = spinTries;
+    }
+    
+    /**
+     * Register a pipe with the handler of its messages
+     * 
+     * @param pipe the pipe
+     * @param handler the handler that will process each message of the pipe, in the selecting thread
+     * @return the pipe the producers must dispatch to, so that the selector knows when it has messages
+     */
+    public synchronized <E extends Transferable<E>> Pipe<E> register(Pipe<E> pipe, MessageHandler<E> handler) {
+        int index = registrations.length;
+        if (index == maxPipes) throw new IllegalStateException("Cannot register more than " + maxPipes + " pipes!");
+        Registration<E> registration = new Registration<E>(this, index, pipe, handler);
+        Registration<?>[] copy = Arrays.copyOf(registrations, index + 1);
+        copy[index] = registration;
+        registrations = copy;
+        ready(index); // in case it already has messages...
+        return registration;
+    }
+    
+    /**
+     * Drain the pipes that have messages, without blocking
+     * 
+     * @param maxMessagesPerPipe the maximum number of messages to drain from each pipe
+     * @return how many messages were drained
+     */
+    public int selectNow(int maxMessagesPerPipe) {
+        int count = 0;
+        for(int w = 0; w < dirty.length; w++) {
+            if ((long) WORDS.getVolatile(dirty, w) == 0) continue; // no pipe with messages...
+            long bits = (long) WORDS.getAndSet(dirty, w, 0L); // a dispatch from now on sets the bit again...
+            final Registration<?>[] registrations = this.registrations; // after the bits, so it has all their pipes...
+            while(bits != 0) {
+                final long bit = Long.lowestOneBit(bits);
+                bits ^= bit;
+                int drained;
+                try {
+                    drained = registrations[(w << 6) + Long.numberOfTrailingZeros(bit)].drain(maxMessagesPerPipe);
+                } catch(RuntimeException e) {
+                    WORDS.getAndBitwiseOr(dirty, w, bits | bit); // the handler threw, give the bits back...
+                    throw e;
+                }
+                if (drained == maxMessagesPerPipe) WORDS.getAndBitwiseOr(dirty, w, bit); // may have more, visit it again next time...
+                count += drained;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Drain the pipes that have messages, spinning a little and then parking until at least one of them has messages
+     * or until {@link #wakeup()} is called
+     * 
+     * @param maxMessagesPerPipe the maximum number of messages to drain from each pipe
+     * @return how many messages were drained, zero only after a wakeup
+     */
+    public int select(int maxMessagesPerPipe) {
+        int attempt = 0;
+        while(true) {
+            int count = selectNow(maxMessagesPerPipe);
+            if (count > 0) return count;
+            if (woken) {
+                woken = false;
+                return 0;
+            }
+            if (attempt++ < spinTries) {
+                Thread.onSpinWait();
+                continue;
+            }
+            waiter = Thread.currentThread();
+            if (!hasReady() && !woken) LockSupport.park(this); // check again now that the producers can see us...
+            waiter = null;
+        }
+    }
+    
+    /**
+     * Make the current or the next select return right away
+     */
+    public void wakeup() {
+        woken = true;
+        Thread thread = waiter;
+        if (thread != null) LockSupport.unpark(thread);
+    }
+    
+    private boolean hasReady() {
+        for(int w = 0; w < dirty.length; w++) {
+            if ((long) WORDS.getVolatile(dirty, w) != 0) return true;
+        }
+        return false;
+    }
+    
+    void ready(int index) {
+        final int w = index >>> 6;
+        final long bit = 1L << index;
+        VarHandle.fullFence(); // the message must be visible before we look at the bit...
+        if (((long) WORDS.getVolatile(dirty, w) & bit) != 0) return; // the consumer will visit it anyway...
+        WORDS.getAndBitwiseOr(dirty, w, bit);
+        Thread thread = waiter;
+        if (thread != null) LockSupport.unpark(thread);
+    }
+    
+    public int getPipes() {
+        return registrations.length;
+    }
+    
+    private static class Registration<E extends Transferable<E>> implements Pipe<E> {
+        
+        private final PipeSelector selector;
+        private final int index;
+        private final Pipe<E> pipe;
+        private final MessageHandler<E> handler;
+        
+        Registration(PipeSelector selector, int index, Pipe<E> pipe, MessageHandler<E> handler) {
+            this.selector = selector;
+            this.index = index;
+            this.pipe = pipe;
+            this.handler = handler;
+        }
+        
+        int drain(int maxMessages) {
+            return pipe.drain(handler, maxMessages);
+        }
+        
+        @Override
+        public boolean dispatch(E message) {
+            if (!pipe.dispatch(message)) return false;
+            selector.ready(index);
+            return true;
+        }
+        
+        @Override
+        public int dispatchBatch(E[] messages, int offset, int length) {
+            int count = pipe.dispatchBatch(messages, offset, length);
+            if (count > 0) selector.ready(index);
+            return count;
+        }
+        
+        @Override
+        public boolean receive(E message) {
+            return pipe.receive(message);
+        }
+        
+        @Override
+        public int drain(MessageHandler<E> handler, int maxMessages) {
+            return pipe.drain(handler, maxMessages);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping;
+
+import me.soliveirajr.piping.util.Builder;
+
+/**
+ * A pipe with several lanes of strict priority, each one its own pipe created by the given builder, so that control
+ * messages, like cancels and configuration changes, do not wait behind a backlog of bulk messages. Lane 0 has the
+ * highest priority and a receive always takes from the highest lane that has a message.
+ * 
+ * With a starvation guard, after the lanes above the lowest one deliver that many messages in a row, the lower lanes
+ * (taken in turns) get to deliver one message, so a busy high lane cannot starve them.
+ * 
+ * The plain {@link #dispatch(Transferable)} goes to the lowest lane. The lanes decide how many threads may dispatch
+ * and receive, for example {@link MpscNonBlockingPipe}s let many threads dispatch to each lane. It blocks if the lanes
+ * block, but the lanes should not block on receive, otherwise an empty high lane would block the receive forever.
+ */
+public class PriorityPipe<E extends Transferable<E>> implements Pipe<E> {
+    
+    private final Pipe<E>[] lanes;
+    private final int lowest;
+    private final int starvationLimit;
+    
+    private int streak = 0; // messages delivered in a row by the lanes above the lowest
+    private int turn = 1; // next lower lane to get a turn
+    
+    public PriorityPipe(int lanes, Builder<Pipe<E>> pipes) {
+        this(lanes, pipes, 0);
+    }
+    
+    /**
+     * @param lanes the number of lanes
+     * @param pipes the builder of the pipe of each lane
+     * @param starvationLimit how many messages the lanes above the lowest can deliver in a row before the lower lanes get a turn, 0 for no limit
+     */
+    @SuppressWarnings("unchecked")
+    public PriorityPipe(int lanes, Builder<Pipe<E>> pipes, int starvationLimit) {
+        if (lanes <= 0 || starvationLimit < 0) {
+            throw new IllegalArgumentException("Bad arguments: lanes=" + lanes + " starvationLimit=" + starvationLimit);
+        }
+        this.lanes = (Pipe<E>[]) new Pipe<?>[lanes];
+        for(int i = 0; i < lanes; i++) {
+            this.lanes[i] = pipes.newInstance();
+        }
+        this.lowest = lanes - 1;
+        this.starvationLimit = starvationLimit;
+    }
+    
+    /**
+     * Dispatch a message to the lowest lane
+     */
+    @Override
+    public boolean dispatch(E message) {
+        return lanes[lowest].dispatch(message);
+    }
+    
+    /**
+     * Dispatch a message to a lane
+     * 
+     * @param message the message to dispatch
+     * @param lane the lane, 0 being the highest priority
+     * @return true if the message was dispatched or false if the lane is full
+     */
+    public boolean dispatch(E message, int lane) {
+        return lanes[lane].dispatch(message);
+    }
+    
+    /**
+     * Dispatch a batch of messages to the lowest lane
+     */
+    @Override
+    public int dispatchBatch(E[] messages, int offset, int length) {
+        return lanes[lowest].dispatchBatch(messages, offset, length);
+    }
+    
+    /**
+     * Dispatch a batch of messages to a lane
+     * 
+     * @param messages the array holding the messages to dispatch
+     * @param offset the index of the first message to dispatch
+     * @param length how many messages to dispatch
+     * @param lane the lane, 0 being the highest priority
+     * @return how many messages were dispatched, which can be less than length if the lane is full
+     */
+    public int dispatchBatch(E[] messages, int offset, int length, int lane) {
+        return lanes[lane].dispatchBatch(messages, offset, length);
+    }
+    
+    /**
+     * Receive a message from the highest lane that has one, or from a lower lane if it is its turn
+     */
+    @Override
+    public boolean receive(E message) {
+        if (starvationLimit > 0 && streak >= starvationLimit) {
+            streak = 0;
+            for(int i = 0; i < lowest; i++) { // a turn for the lower lanes...
+                int lane = nextTurn();
+                if (lanes[lane].receive(message)) return true;
+            }
+        }
+        for(int lane = 0; lane < lanes.length; lane++) {
+            if (lanes[lane].receive(message)) {
+                delivered(lane, 1);
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Receive the messages of the highest lanes first, up to a maximum, passing each one to the handler
+     */
+    @Override
+    public int drain(MessageHandler<E> handler, int maxMessages) {
+        int count = 0;
+        while(count < maxMessages) {
+            if (starvationLimit > 0 && streak >= starvationLimit) {
+                streak = 0;
+                int received = 0;
+                for(int i = 0; i < lowest && received == 0; i++) { // a turn for the lower lanes...
+                    received = lanes[nextTurn()].drain(handler, 1);
+                }
+                count += received;
+                continue;
+            }
+            int received = 0;
+            for(int lane = 0; lane < lanes.length && received == 0; lane++) {
+                int budget = maxMessages - count;
+                if (starvationLimit > 0 && lane != lowest) budget = Math.min(budget, starvationLimit - streak);
+                received = lanes[lane].drain(handler, budget);
+                if (received > 0) delivered(lane, received);
+            }
+            if (received == 0) break; // all lanes are empty...
+            count += received;
+        }
+        return count;
+    }
+    
+    private void delivered(int lane, int count) {
+        if (lane == lowest) {
+            streak = 0;
+        } else {
+            streak += count;
+        }
+    }
+    
+    private int nextTurn() {
+        int lane = turn;
+        turn = turn == lowest ? 1 : turn + 1;
+        return lane;
+    }
+    
+    /**
+     * The pipe of a lane
+     * 
+     * @param lane the lane, 0 being the highest priority
+     * @return the pipe of the lane
+     */
+    public Pipe<E> getLane(int lane) {
+        return lanes[lane];
+    }
+    
+    public int getLanes() {
+        return lanes.length;
+    }
+}
@@ -0,0 +1,99 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping;
+
+import me.soliveirajr.piping.util.Builder;
+import me.soliveirajr.piping.util.Sequence;
+
+/**
+ * A lock-free single-producer/single-consumer pipe backed by a preallocated ring of slots. It never blocks.
+ * If there isn't a message to be received, the receive method returns false. And if there isn't space to send
+ * a message the dispatch method returns false.
+ * 
+ * Only one thread may dispatch and only one thread may receive.
+ */
+public class SpscNonBlockingPipe<E extends Transferable<E>> extends AbstractRingPipe<E> {
+    
+    protected final Sequence head = new Sequence(); // next sequence to receive, written by the consumer
+    protected final Sequence tail = new Sequence(); // next sequence to dispatch, written by the producer
+    
+    private long headCache = 0; // producer's last view of head
+    private long tailCache = 0; // consumer's last view of tail
+    
+    public SpscNonBlockingPipe(int capacity, Class<E> transferable) {
+        super(capacity, transferable);
+    }
+    
+    public SpscNonBlockingPipe(int capacity, Builder<E> transferable) {
+        super(capacity, transferable);
+    }
+    
+    @Override
+    public long claim() {
+        final long t = tail.get();
+        if (t - headCache >= capacity) {
+            headCache = head.get();
+            if (t - headCache >= capacity) return -1; // full...
+        }
+        return t;
+    }
+    
+    @Override
+    public void publish(long sequence) {
+        tail.lazySet(sequence + 1);
+    }
+    
+    @Override
+    public long peek() {
+        final long h = head.get();
+        if (h >= tailCache) {
+            tailCache = tail.get();
+            if (h >= tailCache) return -1; // empty...
+        }
+        return h;
+    }
+    
+    @Override
+    public void release(long sequence) {
+        head.lazySet(sequence + 1); // give the slot back to the producer...
+    }
+    
+    @Override
+    public int dispatchBatch(E[] messages, int offset, int length) {
+        final long t = tail.get();
+        if (t + length - headCache > capacity) headCache = head.get();
+        int count = (int) Math.min(length, capacity - (t - headCache));
+        for(int i = 0; i < count; i++) {
+            messages[offset + i].transferTo(slots[(int) (t + i) & mask]);
+        }
+        if (count > 0) tail.lazySet(t + count); // publish the whole batch at once...
+        return count;
+    }
+    
+    @Override
+    public int drain(MessageHandler<E> handler, int maxMessages) {
+        final long h = head.get();
+        if (h + maxMessages > tailCache) tailCache = tail.get();
+        int count = (int) Math.min(maxMessages, tailCache - h);
+        int i = 0;
+        try {
+            while(i < count) handler.onMessage(slots[(int) (h + i++) & mask]);
+        } finally {
+            if (i > 0) head.lazySet(h + i); // give the whole batch back to the producer at once...
+        }
+        return count;
+    }
+}
\ No newline at end of file
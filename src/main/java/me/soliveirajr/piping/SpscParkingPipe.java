@@ -0,0 +1,161 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.locks.LockSupport;
+
+import me.soliveirajr.piping.util.Builder;
+
+/**
+ * A lock-free single-producer/single-consumer blocking pipe made for virtual threads. A thread that has to wait spins
+ * only briefly and then parks, so it never pins its carrier thread, and the other side unparks it as soon as it
+ * makes progress. Each side announces that it is parked through a waiter field that is only written while waiting,
+ * so when nobody waits the other side just reads a field that never changes.
+ * 
+ * A waiting thread sets its waiter field, issues a full fence and checks the pipe again before parking. The other
+ * side makes its progress visible, issues a full fence and only then reads the waiter field. So either the waiting
+ * thread sees the progress or the other side sees the waiter, and no wakeup is lost. The park is still bounded by a
+ * maximum time, as a safety net.
+ * 
+ * Only one thread may dispatch and only one thread may receive. For the other pipes use a
+ * {@link me.soliveirajr.piping.wait.ParkingWaitStrategy}.
+ */
+public class SpscParkingPipe<E extends Transferable<E>> extends SpscNonBlockingPipe<E> {
+    
+    private final int spinTries;
+    private final long maxParkNanos;
+    
+    private volatile Thread producerWaiter; // only set while the producer is parked on a full pipe
+    private volatile Thread consumerWaiter; // only set while the consumer is parked on an empty pipe
+    
+    public SpscParkingPipe(int capacity, Class<E> transferable) {
+        this(capacity, transferable, 100, 1_000_000);
+    }
+    
+    public SpscParkingPipe(int capacity, Builder<E> transferable) {
+        this(capacity, transferable, 100, 1_000_000);
+    }
+    
+    public SpscParkingPipe(int capacity, Class<E> transferable, int spinTries, long maxParkNanos) {
+        super(capacity, transferable);
+        this.spinTries = spinTries;
+        this.maxParkNanos = check(maxParkNanos);
+    }
+    
+    public SpscParkingPipe(int capacity, Builder<E> transferable, int spinTries, long maxParkNanos) {
+        super(capacity, transferable);
+        this.spinTries = spinTries;
+        this.maxParkNanos = check(maxParkNanos);
+    }
+    
+    private static long check(long maxParkNanos) {
+        if (maxParkNanos <= 0) throw new IllegalArgumentException("Bad maxParkNanos: " + maxParkNanos);
+        return maxParkNanos;
+    }
+    
+    /**
+     * Blocks until a slot is available, so it never returns -1
+     */
+    @Override
+    public long claim() {
+        long sequence;
+        int attempt = 0;
+        while((sequence = super.claim()) < 0) {
+            if (attempt++ < spinTries) {
+                Thread.onSpinWait();
+            } else {
+                producerWaiter = Thread.currentThread();
+                VarHandle.fullFence(); // the consumer must see us before we check again...
+                sequence = super.claim(); // check again now that the consumer can see us...
+                if (sequence < 0) LockSupport.parkNanos(this, maxParkNanos);
+                producerWaiter = null;
+                if (sequence >= 0) break;
+            }
+        }
+        return sequence;
+    }
+    
+    @Override
+    public void publish(long sequence) {
+        super.publish(sequence);
+        wakeConsumer();
+    }
+    
+    /**
+     * Blocks until a message is available, so it never returns -1
+     */
+    @Override
+    public long peek() {
+        long sequence;
+        int attempt = 0;
+        while((sequence = super.peek()) < 0) {
+            if (attempt++ < spinTries) {
+                Thread.onSpinWait();
+            } else {
+                consumerWaiter = Thread.currentThread();
+                VarHandle.fullFence(); // the producer must see us before we check again...
+                sequence = super.peek(); // check again now that the producer can see us...
+                if (sequence < 0) LockSupport.parkNanos(this, maxParkNanos);
+                consumerWaiter = null;
+                if (sequence >= 0) break;
+            }
+        }
+        return sequence;
+    }
+    
+    @Override
+    public void release(long sequence) {
+        super.release(sequence);
+        wakeProducer();
+    }
+    
+    @Override
+    public int dispatchBatch(E[] messages, int offset, int length) {
+        int count = 0;
+        while(count < length) {
+            int dispatched = super.dispatchBatch(messages, offset + count, length - count);
+            if (dispatched > 0) {
+                count += dispatched;
+                wakeConsumer();
+            } else {
+                long sequence = claim(); // block...
+                messages[offset + count++].transferTo(slot(sequence));
+                publish(sequence);
+            }
+        }
+        return count;
+    }
+    
+    @Override
+    public int drain(MessageHandler<E> handler, int maxMessages) {
+        int count = super.drain(handler, maxMessages);
+        if (count > 0) wakeProducer();
+        return count;
+    }
+    
+    private void wakeConsumer() {
+        VarHandle.fullFence(); // the publish must be visible before we look for a waiter...
+        Thread waiter = consumerWaiter;
+        if (waiter != null) LockSupport.unpark(waiter);
+    }
+    
+    private void wakeProducer() {
+        VarHandle.fullFence(); // the release must be visible before we look for a waiter...
+        Thread waiter = producerWaiter;
+        if (waiter != null) LockSupport.unpark(waiter);
+    }
+}
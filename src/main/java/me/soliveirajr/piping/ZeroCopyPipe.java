@@ -0,0 +1,97 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping;
+
+/**
+ * A pipe that also lets you write and read its pooled messages in place, so a message crosses the pipe without
+ * being copied by {@link Transferable#transferTo(Object)} on each side.
+ * 
+ * A producer claims a slot, writes directly into it and publishes it:
+ * 
+ * <pre>
+ * long sequence = pipe.claim();
+ * if (sequence != -1) {
+ *     OpMessage message = pipe.slot(sequence);
+ *     message.op = OpMessage.Op.ADD;
+ *     message.value = 2;
+ *     pipe.publish(sequence);
+ * }
+ * </pre>
+ * 
+ * And a consumer peeks at a slot, reads directly from it and releases it:
+ * 
+ * <pre>
+ * long sequence = pipe.peek();
+ * if (sequence != -1) {
+ *     OpMessage message = pipe.slot(sequence);
+ *     // use the message...
+ *     pipe.release(sequence);
+ * }
+ * </pre>
+ * 
+ * On a single-producer pipe the producer must publish a claimed slot before claiming another one, and on a
+ * single-consumer pipe the consumer must release a peeked slot before peeking again.
+ * 
+ * The {@link Pipe#dispatch(Transferable)} and {@link Pipe#receive(Transferable)} methods are just a claim/publish
+ * and a peek/release with a copy in between.
+ *
+ * @param <E> the message you want to send
+ */
+public interface ZeroCopyPipe<E extends Transferable<E>> extends Pipe<E> {
+    
+    /**
+     * Claim the next free slot so it can be written in place
+     * 
+     * @return the sequence of the claimed slot or -1 if the pipe is full
+     */
+    public long claim();
+    
+    /**
+     * Make a claimed slot visible to the consumer
+     * 
+     * @param sequence the sequence returned by claim
+     */
+    public void publish(long sequence);
+    
+    /**
+     * Get the next message so it can be read in place
+     * 
+     * @return the sequence of the message or -1 if the pipe is empty
+     */
+    public long peek();
+    
+    /**
+     * Give a peeked slot back to the producer
+     * 
+     * @param sequence the sequence returned by peek
+     */
+    public void release(long sequence);
+    
+    /**
+     * The pooled message of a claimed or peeked sequence. It only belongs to you until you publish or release it.
+     * 
+     * @param sequence the sequence returned by claim or peek
+     * @return the message instance in that slot
+     */
+    public E slot(long sequence);
+    
+    /**
+     * The number of slots in this pipe
+     * 
+     * @return the capacity of this pipe
+     */
+    public int capacity();
+}
@@ -0,0 +1,55 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.bench;
+
+import me.soliveirajr.piping.Flyweight;
+
+/**
+ * The off-heap version of {@link BenchMessage}: a sequence, a timestamp and a payload of a fixed size.
+ */
+public class BenchFlyweight extends Flyweight<BenchFlyweight> {
+    
+    private static final int SEQUENCE = 0;
+    private static final int TIMESTAMP = 8;
+    
+    private final int size;
+    
+    public BenchFlyweight(int payloadSize) {
+        super(16 + payloadSize);
+        this.size = 16 + payloadSize;
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    public long sequence() {
+        return buffer.getLong(offset + SEQUENCE);
+    }
+    
+    public void sequence(long sequence) {
+        buffer.putLong(offset + SEQUENCE, sequence);
+    }
+    
+    public long timestamp() {
+        return buffer.getLong(offset + TIMESTAMP);
+    }
+    
+    public void timestamp(long timestamp) {
+        buffer.putLong(offset + TIMESTAMP, timestamp);
+    }
+}
@@ -0,0 +1,43 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.bench;
+
+import me.soliveirajr.piping.Transferable;
+
+/**
+ * A message used by the benchmarks: a sequence, a timestamp and an optional payload to play with the message size.
+ */
+public class BenchMessage implements Transferable<BenchMessage> {
+    
+    public long sequence;
+    public long timestamp;
+    public final byte[] payload;
+    
+    public BenchMessage() {
+        this(0);
+    }
+    
+    public BenchMessage(int payloadSize) {
+        this.payload = new byte[payloadSize];
+    }
+    
+    @Override
+    public void transferTo(BenchMessage dest) {
+        dest.sequence = this.sequence;
+        dest.timestamp = this.timestamp;
+        System.arraycopy(payload, 0, dest.payload, 0, payload.length);
+    }
+}
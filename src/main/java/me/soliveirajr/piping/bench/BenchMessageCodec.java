@@ -0,0 +1,51 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.bench;
+
+import java.nio.ByteBuffer;
+
+import me.soliveirajr.piping.Codec;
+
+/**
+ * Encodes a {@link BenchMessage} for the pipes that go over a socket
+ */
+public class BenchMessageCodec implements Codec<BenchMessage> {
+    
+    private final int payloadSize;
+    
+    public BenchMessageCodec(int payloadSize) {
+        this.payloadSize = payloadSize;
+    }
+    
+    @Override
+    public int maxSize() {
+        return 16 + payloadSize;
+    }
+    
+    @Override
+    public void encode(BenchMessage message, ByteBuffer buffer) {
+        buffer.putLong(message.sequence);
+        buffer.putLong(message.timestamp);
+        buffer.put(message.payload);
+    }
+    
+    @Override
+    public void decode(ByteBuffer buffer, BenchMessage message) {
+        message.sequence = buffer.getLong();
+        message.timestamp = buffer.getLong();
+        buffer.get(message.payload);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,174 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import me.soliveirajr.piping.util.Builder;
+import me.soliveirajr.piping.wait.BackoffWaitStrategy;
+import me.soliveirajr.piping.wait.BusySpinWaitStrategy;
+import me.soliveirajr.piping.wait.ParkingWaitStrategy;
+import me.soliveirajr.piping.wait.WaitStrategy;
+import me.soliveirajr.piping.wait.YieldingWaitStrategy;
+
+/**
+ * The benchmark suite. It runs the three demo approaches and every pipe implementation with warmup and measurement
+ * iterations and reports, JMH style, the throughput (thrpt), the average time per operation (avgt) and the sampled
+ * time messages stay in the pipe (sample), with the 99.9% confidence interval of each mean.
+ * 
+ * <pre>
+ * java -cp classes me.soliveirajr.piping.bench.Benchmarks [options]
+ * 
+ *   -wi 3              warmup iterations
+ *   -i 5               measurement iterations
+ *   -ops 1000000       operations (messages) per iteration
+ *   -capacity 1024     pipe capacities, comma separated
+ *   -threads 1         threads per side for the multi-producer/consumer pipes, comma separated
+ *   -size 0            message payload sizes in bytes, comma separated
+ *   -wait spin         wait strategy of the blocking pipes: spin, yield, backoff or park
+ *   -filter text       only run the benchmarks whose name contains this text
+ * </pre>
+ */
+public class Benchmarks {
+    
+    private static final double[] PERCENTILES = { 0.5, 0.9, 0.99, 0.999, 1.0 };
+    
+    private int warmupIterations = 3;
+    private int iterations = 5;
+    private long operations = 1_000_000;
+    private int[] capacities = { 1024 };
+    private int[] threads = { 1 };
+    private int[] sizes = { 0 };
+    private String wait = "spin";
+    private String filter = "";
+    
+    public static void main(String[] args) throws InterruptedException {
+        Benchmarks benchmarks = new Benchmarks();
+        benchmarks.parse(args);
+        benchmarks.run();
+    }
+    
+    private void parse(String[] args) {
+        for(int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch(args[i]) {
+                case "-wi": warmupIterations = Integer.parseInt(value); break;
+                case "-i": iterations = Integer.parseInt(value); break;
+                case "-ops": operations = Long.parseLong(value); break;
+                case "-capacity": capacities = parseList(value); break;
+                case "-threads": threads = parseList(value); break;
+                case "-size": sizes = parseList(value); break;
+                case "-wait": wait = value; waitStrategy(); break;
+                case "-filter": filter = value; break;
+                default: throw new IllegalArgumentException("Don't know this option: " + args[i]);
+            }
+        }
+    }
+    
+    private static int[] parseList(String value) {
+        String[] values = value.split(",");
+        int[] list = new int[values.length];
+        for(int i = 0; i < values.length; i++) {
+            list[i] = Integer.parseInt(values[i].trim());
+        }
+        return list;
+    }
+    
+    private Builder<WaitStrategy> waitStrategy() {
+        switch(wait) {
+            case "spin": return new Builder<WaitStrategy>() { public WaitStrategy newInstance() { return new BusySpinWaitStrategy(); } };
+            case "yield": return new Builder<WaitStrategy>() { public WaitStrategy newInstance() { return new YieldingWaitStrategy(); } };
+            case "backoff": return new Builder<WaitStrategy>() { public WaitStrategy newInstance() { return new BackoffWaitStrategy(); } };
+            case "park": return new Builder<WaitStrategy>() { public WaitStrategy newInstance() { return new ParkingWaitStrategy(); } };
+            default: throw new IllegalArgumentException("Don't know this wait strategy: " + wait);
+        }
+    }
+    
+    private void run() throws InterruptedException {
+        
+        System.out.printf("# Warmup: %d iterations, Measurement: %d iterations, %,d operations each, wait=%s%n%n", 
+                          warmupIterations, iterations, operations, wait);
+        System.out.printf("%-40s %10s %9s %6s %6s %4s %14s   %13s  %s%n", 
+                          "Benchmark", "(capacity)", "(threads)", "(size)", "Mode", "Cnt", "Score", "Error", "Units");
+        
+        for(DemoBenchmark.Approach approach : DemoBenchmark.Approach.values()) {
+            for(int capacity : capacities) {
+                String name = "demo." + approach;
+                if (!name.contains(filter)) continue;
+                DemoBenchmark benchmark = new DemoBenchmark(approach, capacity, waitStrategy());
+                for(int i = 0; i < warmupIterations; i++) benchmark.run(operations);
+                List<PipeBenchmark.Iteration> results = new ArrayList<PipeBenchmark.Iteration>();
+                for(int i = 0; i < iterations; i++) results.add(benchmark.run(operations));
+                report(name, capacity, 1, 0, results);
+            }
+        }
+        
+        for(PipeBenchmark.Kind kind : PipeBenchmark.Kind.values()) {
+            String name = "pipe." + kind;
+            if (!name.contains(filter)) continue;
+            for(int capacity : capacities) {
+                for(int i = 0; i < threads.length; i++) {
+                    if (i > 0 && !kind.multiProducer && !kind.multiConsumer) break; // threads do not apply...
+                    for(int size : sizes) {
+                        PipeBenchmark benchmark = new PipeBenchmark(kind, capacity, threads[i], size, waitStrategy());
+                        for(int j = 0; j < warmupIterations; j++) benchmark.run(operations);
+                        List<PipeBenchmark.Iteration> results = new ArrayList<PipeBenchmark.Iteration>();
+                        for(int j = 0; j < iterations; j++) results.add(benchmark.run(operations));
+                        report(name, capacity, threads[i], size, results);
+                    }
+                }
+            }
+        }
+    }
+    
+    private void report(String name, int capacity, int threads, int size, List<PipeBenchmark.Iteration> results) {
+        
+        double[] throughput = new double[results.size()];
+        double[] averageTime = new double[results.size()];
+        int sampleCount = 0;
+        for(int i = 0; i < results.size(); i++) {
+            PipeBenchmark.Iteration iteration = results.get(i);
+            throughput[i] = iteration.operations * 1_000_000.0 / iteration.elapsedNanos;
+            averageTime[i] = (double) iteration.elapsedNanos / iteration.operations;
+            sampleCount += iteration.sampleCount;
+        }
+        
+        line(name, capacity, threads, size, "thrpt", results.size(), Stats.mean(throughput), Stats.error(throughput), "ops/ms");
+        line(name, capacity, threads, size, "avgt", results.size(), Stats.mean(averageTime), Stats.error(averageTime), "ns/op");
+        
+        if (sampleCount == 0) return;
+        
+        long[] samples = new long[sampleCount];
+        int index = 0;
+        for(PipeBenchmark.Iteration iteration : results) {
+            System.arraycopy(iteration.samples, 0, samples, index, iteration.sampleCount);
+            index += iteration.sampleCount;
+        }
+        long[] percentiles = Stats.percentiles(samples, sampleCount, PERCENTILES);
+        for(int i = 0; i < PERCENTILES.length; i++) {
+            line(name + ":p" + String.format("%.3f", PERCENTILES[i] * 100), capacity, threads, size, "sample", sampleCount, 
+                 percentiles[i], Double.NaN, "ns/op");
+        }
+    }
+    
+    private static void line(String name, int capacity, int threads, int size, String mode, int count, double score, 
+                             double error, String units) {
+        String interval = Double.isNaN(error) ? "" : String.format("+- %10.3f", error);
+        System.out.printf("%-40s %10d %9d %6d %6s %4d %14.3f   %13s  %s%n", 
+                          name, capacity, threads, size, mode, count, score, interval, units);
+    }
+}
@@ -0,0 +1,96 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.bench;
+
+import me.soliveirajr.piping.LinkedBlockingPipe;
+import me.soliveirajr.piping.Pipe;
+import me.soliveirajr.piping.util.Builder;
+import me.soliveirajr.piping.wait.WaitStrategy;
+
+/**
+ * Runs the ThreadA/ThreadB demos of the three approaches and measures how long they take. Each iteration of the demos
+ * performs two operations on ThreadA's counter: one by ThreadA itself and one on behalf of ThreadB.
+ */
+public class DemoBenchmark {
+    
+    public static enum Approach { SYNCHRONIZED_WAY, PIPE_ASYNC_WAY, PIPE_SYNC_WAY }
+    
+    private final Approach approach;
+    private final int capacity;
+    private final Builder<WaitStrategy> waitStrategy;
+    
+    public DemoBenchmark(Approach approach, int capacity, Builder<WaitStrategy> waitStrategy) {
+        this.approach = approach;
+        this.capacity = capacity;
+        this.waitStrategy = waitStrategy;
+    }
+    
+    PipeBenchmark.Iteration run(long operations) throws InterruptedException {
+        
+        long iterations = operations / 2;
+        
+        Thread threadA;
+        Thread threadB;
+        
+        switch(approach) {
+            case SYNCHRONIZED_WAY: {
+                me.soliveirajr.piping.synchronized_way.ThreadA a = new me.soliveirajr.piping.synchronized_way.ThreadA(iterations);
+                threadA = a;
+                threadB = new me.soliveirajr.piping.synchronized_way.ThreadB(iterations, a);
+                break;
+            }
+            case PIPE_ASYNC_WAY: {
+                Pipe<me.soliveirajr.piping.pipe_async_way.OpMessage> pipe = 
+                    new LinkedBlockingPipe<me.soliveirajr.piping.pipe_async_way.OpMessage>(capacity, 
+                            me.soliveirajr.piping.pipe_async_way.OpMessage.class, waitStrategy.newInstance());
+                threadA = new me.soliveirajr.piping.pipe_async_way.ThreadA(iterations, pipe);
+                threadB = new me.soliveirajr.piping.pipe_async_way.ThreadB(iterations, pipe);
+                break;
+            }
+            case PIPE_SYNC_WAY: {
+                Pipe<me.soliveirajr.piping.pipe_sync_way.OpMessage> inPipe = 
+                    new LinkedBlockingPipe<me.soliveirajr.piping.pipe_sync_way.OpMessage>(capacity, 
+                            me.soliveirajr.piping.pipe_sync_way.OpMessage.class, waitStrategy.newInstance());
+                Pipe<me.soliveirajr.piping.pipe_sync_way.AckMessage> outPipe = 
+                    new LinkedBlockingPipe<me.soliveirajr.piping.pipe_sync_way.AckMessage>(1, 
+                            me.soliveirajr.piping.pipe_sync_way.AckMessage.class, waitStrategy.newInstance());
+                threadA = new me.soliveirajr.piping.pipe_sync_way.ThreadA(iterations, outPipe, inPipe);
+                threadB = new me.soliveirajr.piping.pipe_sync_way.ThreadB(iterations, inPipe, outPipe);
+                break;
+            }
+            default:
+                throw new IllegalStateException("Don't know this approach: " + approach);
+        }
+        
+        long start = System.nanoTime();
+        
+        threadA.start();
+        threadB.start();
+        
+        threadA.join();
+        threadB.join();
+        
+        PipeBenchmark.Iteration iteration = new PipeBenchmark.Iteration();
+        iteration.elapsedNanos = System.nanoTime() - start;
+        iteration.operations = iterations * 2;
+        iteration.samples = new long[0];
+        return iteration;
+    }
+    
+    public Approach getApproach() {
+        return approach;
+    }
+}
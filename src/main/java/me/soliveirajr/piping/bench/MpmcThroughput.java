@@ -0,0 +1,98 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.bench;
+
+import me.soliveirajr.piping.LinkedBlockingPipe;
+import me.soliveirajr.piping.MpmcBlockingPipe;
+import me.soliveirajr.piping.Pipe;
+
+/**
+ * Measures the throughput of {@link MpmcBlockingPipe} against {@link LinkedBlockingPipe} with 2, 4 and 8
+ * producer threads and the same number of consumer threads.
+ */
+public class MpmcThroughput {
+    
+    private static final int[] THREADS = { 2, 4, 8 };
+    
+    public static void main(String[] args) throws InterruptedException {
+        
+        final long messages = args.length > 0 ? Long.parseLong(args[0]) : 10_000_000;
+        final int capacity = args.length > 1 ? Integer.parseInt(args[1]) : 1024;
+        
+        for(int threads : THREADS) {
+            
+            long perProducer = messages / threads;
+            
+            run(new LinkedBlockingPipe<BenchMessage>(capacity, BenchMessage.class), threads, perProducer); // warmup...
+            double linked = run(new LinkedBlockingPipe<BenchMessage>(capacity, BenchMessage.class), threads, perProducer);
+            
+            run(new MpmcBlockingPipe<BenchMessage>(capacity, BenchMessage.class), threads, perProducer); // warmup...
+            double mpmc = run(new MpmcBlockingPipe<BenchMessage>(capacity, BenchMessage.class), threads, perProducer);
+            
+            System.out.printf("%d x %d threads: LinkedBlockingPipe=%,.0f msgs/sec MpmcBlockingPipe=%,.0f msgs/sec (%.2fx)%n", 
+                              threads, threads, linked, mpmc, mpmc / linked);
+        }
+    }
+    
+    /**
+     * Run the given number of producers and consumers through the pipe
+     * 
+     * @return the throughput in messages per second
+     */
+    static double run(final Pipe<BenchMessage> pipe, int threads, final long perThread) throws InterruptedException {
+        
+        Thread[] producers = new Thread[threads];
+        Thread[] consumers = new Thread[threads];
+        
+        for(int i = 0; i < threads; i++) {
+            producers[i] = new Thread() {
+                private final BenchMessage toSend = new BenchMessage();
+                @Override
+                public void run() {
+                    for(long i = 0; i < perThread; i++) {
+                        toSend.sequence = i;
+                        pipe.dispatch(toSend);
+                    }
+                }
+            };
+            consumers[i] = new Thread() {
+                private final BenchMessage toReceive = new BenchMessage();
+                @Override
+                public void run() {
+                    for(long i = 0; i < perThread; i++) {
+                        pipe.receive(toReceive);
+                    }
+                }
+            };
+        }
+        
+        long start = System.nanoTime();
+        
+        for(int i = 0; i < threads; i++) {
+            consumers[i].start();
+            producers[i].start();
+        }
+        
+        for(int i = 0; i < threads; i++) {
+            producers[i].join();
+            consumers[i].join();
+        }
+        
+        long elapsed = System.nanoTime() - start;
+        
+        return perThread * threads * 1_000_000_000.0 / elapsed;
+    }
+}
@@ -0,0 +1,377 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import me.soliveirajr.piping.ElasticPipe;
+import me.soliveirajr.piping.LinkedBlockingPipe;
+import me.soliveirajr.piping.LinkedNonBlockingPipe;
+import me.soliveirajr.piping.LongPipe;
+import me.soliveirajr.piping.MappedFilePipe;
+import me.soliveirajr.piping.MpmcBlockingPipe;
+import me.soliveirajr.piping.MpmcNonBlockingPipe;
+import me.soliveirajr.piping.MpscBlockingPipe;
+import me.soliveirajr.piping.MpscNonBlockingPipe;
+import me.soliveirajr.piping.OffHeapPipe;
+import me.soliveirajr.piping.Pipe;
+import me.soliveirajr.piping.PriorityPipe;
+import me.soliveirajr.piping.SpscBlockingPipe;
+import me.soliveirajr.piping.SpscNonBlockingPipe;
+import me.soliveirajr.piping.SpscParkingPipe;
+import me.soliveirajr.piping.Transferable;
+import me.soliveirajr.piping.net.SocketPipe;
+import me.soliveirajr.piping.net.SocketReactor;
+import me.soliveirajr.piping.util.Builder;
+import me.soliveirajr.piping.wait.WaitStrategy;
+import me.soliveirajr.piping.wait.YieldingWaitStrategy;
+
+/**
+ * Pushes messages from producer threads to consumer threads through one of the {@link Pipe} implementations and
+ * measures how long it takes. One in every {@link #SAMPLE_EVERY} messages carries the time it was dispatched, so the
+ * consumers can sample how long messages stay in the pipe.
+ * 
+ * {@link LongPipe} carries a long instead of a message, so the payload size does not apply to it. The
+ * {@link me.soliveirajr.piping.ConflatingPipe} is left out: it drops the messages it conflates, so the consumers
+ * cannot know how many messages to wait for.
+ */
+public class PipeBenchmark {
+    
+    public static enum Kind {
+        
+        LINKED_BLOCKING(true, true), 
+        LINKED_NON_BLOCKING(true, true), 
+        SPSC_BLOCKING(false, false), 
+        SPSC_NON_BLOCKING(false, false), 
+        SPSC_PARKING(false, false), 
+        MPSC_BLOCKING(true, false), 
+        MPSC_NON_BLOCKING(true, false), 
+        MPMC_BLOCKING(true, true), 
+        MPMC_NON_BLOCKING(true, true), 
+        ELASTIC(false, false), 
+        PRIORITY(false, false), 
+        LONG(false, false), 
+        OFF_HEAP(false, false), 
+        MAPPED_FILE(false, false), 
+        SOCKET(false, false);
+        
+        final boolean multiProducer;
+        final boolean multiConsumer;
+        
+        private Kind(boolean multiProducer, boolean multiConsumer) {
+            this.multiProducer = multiProducer;
+            this.multiConsumer = multiConsumer;
+        }
+    }
+    
+    static final int SAMPLE_EVERY = 128;
+    
+    /**
+     * The outcome of one iteration
+     */
+    static class Iteration {
+        
+        long operations;
+        long elapsedNanos;
+        long[] samples;
+        int sampleCount;
+    }
+    
+    private static interface Access<E> {
+        
+        public void set(E message, long sequence, long timestamp);
+        
+        public long timestamp(E message);
+    }
+    
+    private static final Access<BenchMessage> HEAP_ACCESS = new Access<BenchMessage>() {
+        
+        @Override
+        public void set(BenchMessage message, long sequence, long timestamp) {
+            message.sequence = sequence;
+            message.timestamp = timestamp;
+        }
+        
+        @Override
+        public long timestamp(BenchMessage message) {
+            return message.timestamp;
+        }
+    };
+    
+    private static final Access<BenchFlyweight> OFF_HEAP_ACCESS = new Access<BenchFlyweight>() {
+        
+        @Override
+        public void set(BenchFlyweight message, long sequence, long timestamp) {
+            message.sequence(sequence);
+            message.timestamp(timestamp);
+        }
+        
+        @Override
+        public long timestamp(BenchFlyweight message) {
+            return message.timestamp();
+        }
+    };
+    
+    private final Kind kind;
+    private final int capacity;
+    private final int producers;
+    private final int consumers;
+    private final int payloadSize;
+    private final Builder<WaitStrategy> waitStrategy;
+    
+    public PipeBenchmark(Kind kind, int capacity, int threads, int payloadSize, Builder<WaitStrategy> waitStrategy) {
+        this.kind = kind;
+        this.capacity = capacity;
+        this.producers = kind.multiProducer ? threads : 1;
+        this.consumers = kind.multiConsumer ? threads : 1;
+        this.payloadSize = payloadSize;
+        this.waitStrategy = waitStrategy;
+    }
+    
+    Iteration run(long operations) throws InterruptedException {
+        
+        Builder<BenchMessage> messages = new Builder<BenchMessage>() {
+            @Override
+            public BenchMessage newInstance() {
+                return new BenchMessage(payloadSize);
+            }
+        };
+        
+        Builder<BenchFlyweight> flyweights = new Builder<BenchFlyweight>() {
+            @Override
+            public BenchFlyweight newInstance() {
+                return new BenchFlyweight(payloadSize);
+            }
+        };
+        
+        Builder<Pipe<BenchMessage>> lanes = new Builder<Pipe<BenchMessage>>() {
+            @Override
+            public Pipe<BenchMessage> newInstance() {
+                return new SpscNonBlockingPipe<BenchMessage>(capacity, messages);
+            }
+        };
+        
+        switch(kind) {
+            case LINKED_BLOCKING:
+                return run(new LinkedBlockingPipe<BenchMessage>(capacity, messages, waitStrategy.newInstance()), messages, HEAP_ACCESS, operations);
+            case LINKED_NON_BLOCKING:
+                return run(new LinkedNonBlockingPipe<BenchMessage>(capacity, messages), messages, HEAP_ACCESS, operations);
+            case SPSC_BLOCKING:
+                return run(new SpscBlockingPipe<BenchMessage>(capacity, messages, waitStrategy.newInstance()), messages, HEAP_ACCESS, operations);
+            case SPSC_NON_BLOCKING:
+                return run(new SpscNonBlockingPipe<BenchMessage>(capacity, messages), messages, HEAP_ACCESS, operations);
+            case SPSC_PARKING:
+                return run(new SpscParkingPipe<BenchMessage>(capacity, messages), messages, HEAP_ACCESS, operations);
+            case MPSC_BLOCKING:
+                return run(new MpscBlockingPipe<BenchMessage>(capacity, messages, waitStrategy.newInstance()), messages, HEAP_ACCESS, operations);
+            case MPSC_NON_BLOCKING:
+                return run(new MpscNonBlockingPipe<BenchMessage>(capacity, messages), messages, HEAP_ACCESS, operations);
+            case MPMC_BLOCKING:
+                return run(new MpmcBlockingPipe<BenchMessage>(capacity, messages, waitStrategy.newInstance()), messages, HEAP_ACCESS, operations);
+            case MPMC_NON_BLOCKING:
+                return run(new MpmcNonBlockingPipe<BenchMessage>(capacity, messages), messages, HEAP_ACCESS, operations);
+            case ELASTIC:
+                int chunkSize = Math.max(1, capacity / 8);
+                return run(new ElasticPipe<BenchMessage>(chunkSize, capacity, chunkSize, messages), messages, HEAP_ACCESS, operations);
+            case PRIORITY:
+                return run(new PriorityPipe<BenchMessage>(2, lanes), messages, HEAP_ACCESS, operations);
+            case LONG:
+                return runLong(operations);
+            case OFF_HEAP:
+                return run(new OffHeapPipe<BenchFlyweight>(capacity, flyweights), flyweights, OFF_HEAP_ACCESS, operations);
+            case MAPPED_FILE:
+                File file = tempFile();
+                try {
+                    return run(new MappedFilePipe<BenchFlyweight>(file, capacity, flyweights), flyweights, OFF_HEAP_ACCESS, operations);
+                } finally {
+                    file.delete();
+                }
+            case SOCKET:
+                return runSocket(messages, operations);
+            default:
+                throw new IllegalStateException("Don't know this kind: " + kind);
+        }
+    }
+    
+    private static File tempFile() {
+        try {
+            File file = File.createTempFile("bench", ".pipe");
+            file.delete(); // we want a fresh pipe...
+            return file;
+        } catch(IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    /**
+     * Over loopback, the producer dispatches to one end of the connection and the consumer receives from the other
+     */
+    private Iteration runSocket(Builder<BenchMessage> messages, long operations) throws InterruptedException {
+        SocketReactor reactor = new SocketReactor();
+        reactor.start();
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            BenchMessageCodec codec = new BenchMessageCodec(payloadSize);
+            SocketPipe<BenchMessage> producerSide = new SocketPipe<BenchMessage>(reactor, SocketChannel.open(server.getLocalAddress()), capacity, messages, codec);
+            SocketPipe<BenchMessage> consumerSide = new SocketPipe<BenchMessage>(reactor, server.accept(), capacity, messages, codec);
+            try {
+                return run(producerSide, consumerSide, messages, HEAP_ACCESS, operations);
+            } finally {
+                producerSide.close();
+                consumerSide.close();
+            }
+        } catch(IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            reactor.stop();
+        }
+    }
+    
+    /**
+     * The producer dispatches the timestamp itself, or zero when the message is not sampled
+     */
+    private Iteration runLong(final long operations) throws InterruptedException {
+        
+        final LongPipe pipe = new LongPipe(capacity);
+        
+        final Iteration iteration = new Iteration();
+        iteration.operations = operations;
+        iteration.samples = new long[(int) (operations / SAMPLE_EVERY) + 1];
+        
+        Thread producer = new Thread() {
+            @Override
+            public void run() {
+                WaitStrategy idle = new YieldingWaitStrategy();
+                for(long i = 0; i < operations; i++) {
+                    long value = i % SAMPLE_EVERY == 0 ? System.nanoTime() : 0;
+                    int attempt = 0;
+                    while(!pipe.dispatch(value)) idle.idle(attempt++);
+                }
+            }
+        };
+        
+        Thread consumer = new Thread() {
+            @Override
+            public void run() {
+                WaitStrategy idle = new YieldingWaitStrategy();
+                for(long i = 0; i < operations; i++) {
+                    int attempt = 0;
+                    while(!pipe.receive()) idle.idle(attempt++);
+                    long timestamp = pipe.value();
+                    if (timestamp != 0) iteration.samples[iteration.sampleCount++] = System.nanoTime() - timestamp;
+                }
+            }
+        };
+        
+        long start = System.nanoTime();
+        
+        producer.start();
+        consumer.start();
+        producer.join();
+        consumer.join();
+        
+        iteration.elapsedNanos = System.nanoTime() - start;
+        
+        return iteration;
+    }
+    
+    private <E extends Transferable<E>> Iteration run(Pipe<E> pipe, Builder<E> builder, Access<E> access, long operations) throws InterruptedException {
+        return run(pipe, pipe, builder, access, operations);
+    }
+    
+    private <E extends Transferable<E>> Iteration run(final Pipe<E> producerSide, final Pipe<E> consumerSide, final Builder<E> builder, 
+                                                      final Access<E> access, long operations) throws InterruptedException {
+        
+        final long perProducer = operations / producers;
+        final long total = perProducer * producers;
+        
+        final Iteration iteration = new Iteration();
+        iteration.operations = total;
+        iteration.samples = new long[(int) (total / SAMPLE_EVERY) + producers];
+        
+        final long[][] samples = new long[consumers][iteration.samples.length];
+        final int[] sampleCounts = new int[consumers];
+        
+        Thread[] threads = new Thread[producers + consumers];
+        
+        for(int p = 0; p < producers; p++) {
+            threads[p] = new Thread() {
+                @Override
+                public void run() {
+                    E toSend = builder.newInstance();
+                    WaitStrategy idle = new YieldingWaitStrategy();
+                    for(long i = 0; i < perProducer; i++) {
+                        access.set(toSend, i, i % SAMPLE_EVERY == 0 ? System.nanoTime() : 0);
+                        int attempt = 0;
+                        while(!producerSide.dispatch(toSend)) idle.idle(attempt++);
+                    }
+                }
+            };
+        }
+        
+        for(int c = 0; c < consumers; c++) {
+            final int consumer = c;
+            final long count = total / consumers + (c == 0 ? total % consumers : 0);
+            threads[producers + c] = new Thread() {
+                @Override
+                public void run() {
+                    E toReceive = builder.newInstance();
+                    WaitStrategy idle = new YieldingWaitStrategy();
+                    long[] mySamples = samples[consumer];
+                    int sampleCount = 0;
+                    for(long i = 0; i < count; i++) {
+                        int attempt = 0;
+                        while(!consumerSide.receive(toReceive)) idle.idle(attempt++);
+                        long timestamp = access.timestamp(toReceive);
+                        if (timestamp != 0) mySamples[sampleCount++] = System.nanoTime() - timestamp;
+                    }
+                    sampleCounts[consumer] = sampleCount;
+                }
+            };
+        }
+        
+        long start = System.nanoTime();
+        
+        for(Thread thread : threads) thread.start();
+        for(Thread thread : threads) thread.join();
+        
+        iteration.elapsedNanos = System.nanoTime() - start;
+        
+        for(int c = 0; c < consumers; c++) {
+            System.arraycopy(samples[c], 0, iteration.samples, iteration.sampleCount, sampleCounts[c]);
+            iteration.sampleCount += sampleCounts[c];
+        }
+        
+        return iteration;
+    }
+    
+    public Kind getKind() {
+        return kind;
+    }
+    
+    public int getProducers() {
+        return producers;
+    }
+    
+    public int getConsumers() {
+        return consumers;
+    }
+}
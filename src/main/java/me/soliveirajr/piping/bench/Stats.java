@@ -0,0 +1,66 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.bench;
+
+import java.util.Arrays;
+
+/**
+ * The statistics reported by the benchmarks.
+ */
+final class Stats {
+    
+    // Student's t for a two-sided 99.9% confidence interval, indexed by degrees of freedom...
+    private static final double[] T_999 = { Double.NaN, 636.619, 31.599, 12.924, 8.610, 6.869, 5.959, 5.408, 5.041, 4.781, 4.587,
+                                            4.437, 4.318, 4.221, 4.140, 4.073, 4.015, 3.965, 3.922, 3.883, 3.850 };
+    
+    private Stats() {
+        
+    }
+    
+    static double mean(double[] values) {
+        double sum = 0;
+        for(double value : values) sum += value;
+        return sum / values.length;
+    }
+    
+    /**
+     * Half the width of the 99.9% confidence interval of the mean, like JMH reports
+     */
+    static double error(double[] values) {
+        int n = values.length;
+        if (n < 2) return Double.NaN;
+        double mean = mean(values);
+        double squares = 0;
+        for(double value : values) squares += (value - mean) * (value - mean);
+        double stddev = Math.sqrt(squares / (n - 1));
+        double t = n - 1 < T_999.length ? T_999[n - 1] : 3.291;
+        return t * stddev / Math.sqrt(n);
+    }
+    
+    /**
+     * The given percentiles (between 0 and 1) of the first count values, which get sorted
+     */
+    static long[] percentiles(long[] values, int count, double ... percentiles) {
+        Arrays.sort(values, 0, count);
+        long[] result = new long[percentiles.length];
+        for(int i = 0; i < percentiles.length; i++) {
+            if (count == 0) continue;
+            int index = (int) Math.ceil(percentiles[i] * count) - 1;
+            result[i] = values[Math.max(0, Math.min(count - 1, index))];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,49 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.codegen;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Makes the {@link TransferProcessor} generate, at compile time, a field-by-field copy and a
+ * {@link me.soliveirajr.piping.util.Builder} for a message class. For a message <code>OpMessage</code> it generates
+ * <code>OpMessageTransfers</code>, to be called by its <code>transferTo</code>, and <code>OpMessageBuilder</code>, to
+ * fill the pools of the pipes without reflection:
+ * 
+ * <pre>
+ * &#64;GenerateTransfer
+ * public class OpMessage implements Transferable&lt;OpMessage&gt; {
+ * 
+ *     public Op op;
+ *     public long value;
+ *     
+ *     &#64;Override
+ *     public void transferTo(OpMessage dest) {
+ *         OpMessageTransfers.transfer(this, dest);
+ *     }
+ * }
+ * 
+ * Pipe&lt;OpMessage&gt; pipe = new LinkedBlockingPipe&lt;OpMessage&gt;(1024, new OpMessageBuilder());
+ * </pre>
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface GenerateTransfer {
+    
+}
@@ -0,0 +1,232 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.codegen;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * The annotation processor of {@link GenerateTransfer}. For each annotated message it generates, in the same package:
+ * <ul>
+ * <li>a <code>Transfers</code> class with a static <code>transfer(src, dest)</code> that copies every instance field,
+ * including the inherited ones, with plain assignments that the JIT can inline. Arrays are copied in bulk with
+ * <code>System.arraycopy</code> into the array of the destination, which must have the same length, and fields
+ * holding a {@link me.soliveirajr.piping.Transferable} are copied with its own <code>transferTo</code>, so they must
+ * not be null.</li>
+ * <li>a <code>Builder</code> class that creates the message with its no-arg constructor.</li>
+ * </ul>
+ * Static and transient fields are skipped. The fields and the no-arg constructor must not be private. A plain
+ * assignment would make the message and its copy share the same object across threads, so it is only used for
+ * primitives and immutable types (enums, strings and boxed primitives). Any other object, or array of objects, is an
+ * error.
+ */
+@SupportedAnnotationTypes("me.soliveirajr.piping.codegen.GenerateTransfer")
+public class TransferProcessor extends AbstractProcessor {
+    
+    private static final String TRANSFERABLE = "me.soliveirajr.piping.Transferable";
+    
+    private static final Set<String> IMMUTABLES = new HashSet<String>(Arrays.asList(
+        "java.lang.String", "java.lang.Boolean", "java.lang.Byte", "java.lang.Short", "java.lang.Character", 
+        "java.lang.Integer", "java.lang.Long", "java.lang.Float", "java.lang.Double"));
+    
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+    
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for(Element element : roundEnv.getElementsAnnotatedWith(GenerateTransfer.class)) {
+            if (element.getKind() != ElementKind.CLASS || element.getModifiers().contains(Modifier.ABSTRACT)) {
+                error(element, "@GenerateTransfer can only be used on a concrete class");
+                continue;
+            }
+            TypeElement type = (TypeElement) element;
+            if (!isTransferable(type.asType())) {
+                error(type, "@GenerateTransfer class must implement " + TRANSFERABLE);
+                continue;
+            }
+            try {
+                List<String> copies = copies(type);
+                if (copies == null) continue; // already reported...
+                writeTransfers(type, copies);
+                if (hasNoArgConstructor(type)) {
+                    writeBuilder(type);
+                } else {
+                    error(type, "@GenerateTransfer class must have a no-arg constructor that is not private");
+                }
+            } catch(IOException e) {
+                error(type, "Cannot generate code: " + e);
+            }
+        }
+        return true;
+    }
+    
+    private List<String> copies(TypeElement type) {
+        List<String> copies = new ArrayList<String>();
+        boolean ok = true;
+        for(TypeElement t = type; t != null; t = superclass(t)) {
+            for(VariableElement field : ElementFilter.fieldsIn(t.getEnclosedElements())) {
+                Set<Modifier> modifiers = field.getModifiers();
+                if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) continue;
+                String name = field.getSimpleName().toString();
+                if (modifiers.contains(Modifier.PRIVATE)) {
+                    error(field, "Field " + name + " cannot be copied because it is private");
+                    ok = false;
+                } else if (field.asType().getKind() == TypeKind.ARRAY) {
+                    if (isImmutable(((ArrayType) field.asType()).getComponentType())) {
+                        copies.add("System.arraycopy(src." + name + ", 0, dest." + name + ", 0, src." + name + ".length);");
+                    } else {
+                        error(field, "Field " + name + " cannot be copied because its elements are mutable objects");
+                        ok = false;
+                    }
+                } else if (isTransferable(field.asType())) {
+                    copies.add("src." + name + ".transferTo(dest." + name + ");");
+                } else if (!isImmutable(field.asType())) {
+                    error(field, "Field " + name + " cannot be copied because it holds a mutable object that is not a " + TRANSFERABLE);
+                    ok = false;
+                } else if (modifiers.contains(Modifier.FINAL)) {
+                    error(field, "Field " + name + " cannot be copied because it is final");
+                    ok = false;
+                } else {
+                    copies.add("dest." + name + " = src." + name + ";");
+                }
+            }
+        }
+        return ok ? copies : null;
+    }
+    
+    private TypeElement superclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) return null;
+        TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+        return element.getQualifiedName().contentEquals("java.lang.Object") ? null : element;
+    }
+    
+    private boolean isTransferable(TypeMirror type) {
+        TypeElement transferable = processingEnv.getElementUtils().getTypeElement(TRANSFERABLE);
+        if (transferable == null) return false;
+        TypeMirror erasure = processingEnv.getTypeUtils().erasure(transferable.asType());
+        return processingEnv.getTypeUtils().isAssignable(processingEnv.getTypeUtils().erasure(type), erasure);
+    }
+    
+    /**
+     * @return true if the message and its copy can share a value of this type
+     */
+    private boolean isImmutable(TypeMirror type) {
+        if (type.getKind().isPrimitive()) return true;
+        if (type.getKind() != TypeKind.DECLARED) return false;
+        TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+        return element.getKind() == ElementKind.ENUM || IMMUTABLES.contains(element.getQualifiedName().toString());
+    }
+    
+    private boolean hasNoArgConstructor(TypeElement type) {
+        if (type.getNestingKind().isNested() && !type.getModifiers().contains(Modifier.STATIC)) return false;
+        for(ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) return true;
+        }
+        return false;
+    }
+    
+    private void writeTransfers(TypeElement type, List<String> copies) throws IOException {
+        String name = generatedName(type, "Transfers");
+        String message = type.getQualifiedName().toString();
+        try (PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(qualified(type, name), type).openWriter())) {
+            header(out, type);
+            out.println("/**");
+            out.println(" * The copy of {@link " + message + "}, generated by " + TransferProcessor.class.getSimpleName() + ". Do not edit.");
+            out.println(" */");
+            out.println("public final class " + name + " {");
+            out.println("    ");
+            out.println("    private " + name + "() {");
+            out.println("        ");
+            out.println("    }");
+            out.println("    ");
+            out.println("    public static void transfer(" + message + " src, " + message + " dest) {");
+            for(String copy : copies) {
+                out.println("        " + copy);
+            }
+            out.println("    }");
+            out.print("}");
+        }
+    }
+    
+    private void writeBuilder(TypeElement type) throws IOException {
+        String name = generatedName(type, "Builder");
+        String message = type.getQualifiedName().toString();
+        try (PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(qualified(type, name), type).openWriter())) {
+            header(out, type);
+            out.println("/**");
+            out.println(" * Creates {@link " + message + "} without reflection, generated by " + TransferProcessor.class.getSimpleName() + ". Do not edit.");
+            out.println(" */");
+            out.println("public final class " + name + " implements me.soliveirajr.piping.util.Builder<" + message + "> {");
+            out.println("    ");
+            out.println("    @Override");
+            out.println("    public " + message + " newInstance() {");
+            out.println("        return new " + message + "();");
+            out.println("    }");
+            out.print("}");
+        }
+    }
+    
+    private void header(PrintWriter out, TypeElement type) {
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+        if (!pkg.isUnnamed()) {
+            out.println("package " + pkg.getQualifiedName() + ";");
+            out.println();
+        }
+    }
+    
+    private String generatedName(TypeElement type, String suffix) {
+        String name = type.getSimpleName().toString();
+        for(Element e = type.getEnclosingElement(); e instanceof TypeElement; e = e.getEnclosingElement()) {
+            name = e.getSimpleName() + "_" + name; // nested classes...
+        }
+        return name + suffix;
+    }
+    
+    private String qualified(TypeElement type, String name) {
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+        return pkg.isUnnamed() ? name : pkg.getQualifiedName() + "." + name;
+    }
+    
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,230 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.flow;
+
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import me.soliveirajr.piping.MessageHandler;
+import me.soliveirajr.piping.Pipe;
+import me.soliveirajr.piping.Transferable;
+import me.soliveirajr.piping.util.Builder;
+import me.soliveirajr.piping.wait.WaitStrategy;
+import me.soliveirajr.piping.wait.YieldingWaitStrategy;
+
+/**
+ * Exposes the receiving side of a {@link Pipe} as a {@link Flow.Publisher}, so that a reactive subscriber does not
+ * have to hand-roll a polling loop. The subscription has its own thread that drains the pipe in batches sized by the
+ * demand of the subscriber: it never drains more than was requested, so while the subscriber is not asking for more
+ * the messages stay in the pipe and its bounded pool pushes back on the producers. With no demand the thread parks;
+ * with demand and an empty pipe it waits with its {@link WaitStrategy}, which by default yields. The thread is a
+ * daemon, so an idle subscription does not keep the JVM alive.
+ * 
+ * After {@link #close()} the subscriber is completed as soon as the pipe is empty, even without demand. To find out
+ * if it is, the publisher moves the next message out of the pipe into a message of its own (created with the given
+ * class or builder) and holds it until there is demand.
+ * 
+ * The messages are passed to <code>onNext</code> in place, like {@link Pipe#drain(MessageHandler, int)} does, so they
+ * are only valid during the call. Copy them if you need to keep them. If <code>onNext</code> throws, or if the
+ * subscriber requests zero or less, the subscription is cancelled right away and the subscriber gets
+ * <code>onError</code>. The rest of the batch being drained is then dropped.
+ * 
+ * A pipe has a single consumer, so the publisher accepts a single subscriber.
+ */
+public class PipePublisher<E extends Transferable<E>> implements Flow.Publisher<E> {
+    
+    private final Pipe<E> pipe;
+    private final E lookahead;
+    private final int batchSize;
+    private final WaitStrategy waitStrategy;
+    private final AtomicBoolean subscribed = new AtomicBoolean(false);
+    
+    private volatile boolean closed = false;
+    private volatile PipeSubscription subscription;
+    
+    public PipePublisher(Pipe<E> pipe, Class<E> transferable) {
+        this(pipe, transferable, 256, new YieldingWaitStrategy());
+    }
+    
+    public PipePublisher(Pipe<E> pipe, Builder<E> transferable) {
+        this(pipe, transferable, 256, new YieldingWaitStrategy());
+    }
+    
+    public PipePublisher(Pipe<E> pipe, Class<E> transferable, int batchSize, WaitStrategy waitStrategy) {
+        this(pipe, newInstance(transferable), batchSize, waitStrategy);
+    }
+    
+    /**
+     * @param pipe the pipe to receive from
+     * @param transferable the builder of the messages
+     * @param batchSize the maximum number of messages to drain at a time
+     * @param waitStrategy how to wait when there is demand but the pipe is empty
+     */
+    public PipePublisher(Pipe<E> pipe, Builder<E> transferable, int batchSize, WaitStrategy waitStrategy) {
+        this(pipe, transferable.newInstance(), batchSize, waitStrategy);
+    }
+    
+    private PipePublisher(Pipe<E> pipe, E lookahead, int batchSize, WaitStrategy waitStrategy) {
+        if (batchSize <= 0) throw new IllegalArgumentException("Bad batch size: " + batchSize);
+        this.pipe = pipe;
+        this.lookahead = lookahead;
+        this.batchSize = batchSize;
+        this.waitStrategy = waitStrategy;
+    }
+    
+    private static <E> E newInstance(Class<E> transferable) {
+        try {
+            return transferable.getDeclaredConstructor().newInstance();
+        } catch(Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    @Override
+    public void subscribe(Flow.Subscriber<? super E> subscriber) {
+        Objects.requireNonNull(subscriber);
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) { }
+                @Override
+                public void cancel() { }
+            });
+            subscriber.onError(new IllegalStateException("A pipe can only have one subscriber!"));
+            return;
+        }
+        PipeSubscription s = new PipeSubscription(subscriber);
+        subscription = s;
+        s.start();
+    }
+    
+    /**
+     * Complete the subscriber once it has received everything that is in the pipe. No more messages may be dispatched
+     * to the pipe after this is called.
+     */
+    public void close() {
+        closed = true;
+        PipeSubscription s = subscription;
+        if (s != null) LockSupport.unpark(s);
+    }
+    
+    private class PipeSubscription extends Thread implements Flow.Subscription, MessageHandler<E> {
+        
+        private final Flow.Subscriber<? super E> subscriber;
+        private final AtomicLong demand = new AtomicLong(0);
+        
+        private volatile boolean cancelled = false;
+        private volatile IllegalArgumentException badRequest;
+        private boolean hasLookahead = false;
+        
+        private final MessageHandler<E> toLookahead = new MessageHandler<E>() {
+            @Override
+            public void onMessage(E message) {
+                message.transferTo(lookahead);
+            }
+        };
+        
+        PipeSubscription(Flow.Subscriber<? super E> subscriber) {
+            super(PipePublisher.class.getSimpleName());
+            this.subscriber = subscriber;
+            setDaemon(true);
+        }
+        
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                badRequest = new IllegalArgumentException("Must request a positive number of messages: " + n);
+                cancelled = true; // no more onNext, the thread signals the error...
+            } else {
+                long current;
+                do {
+                    current = demand.get();
+                    if (current == Long.MAX_VALUE) break; // unbounded...
+                } while(!demand.compareAndSet(current, current + n < 0 ? Long.MAX_VALUE : current + n));
+            }
+            LockSupport.unpark(this);
+        }
+        
+        @Override
+        public void cancel() {
+            cancelled = true;
+            LockSupport.unpark(this);
+        }
+        
+        @Override
+        public void onMessage(E message) {
+            if (!cancelled) subscriber.onNext(message); // drop the rest of the batch once cancelled...
+        }
+        
+        @Override
+        public void run() {
+            boolean terminated = false; // onComplete or onError was called...
+            try {
+                subscriber.onSubscribe(this);
+                int attempt = 0;
+                while(!cancelled) {
+                    final long d = demand.get();
+                    final boolean wasClosed = closed; // read before draining, so we do not miss the last messages...
+                    if (d == 0) {
+                        if (wasClosed && !hasLookahead) { // no demand, but we may be done...
+                            if (pipe.drain(toLookahead, 1) > 0) {
+                                hasLookahead = true;
+                            } else {
+                                cancelled = terminated = true;
+                                subscriber.onComplete();
+                            }
+                            continue;
+                        }
+                        LockSupport.park(this); // until more is requested...
+                        continue;
+                    }
+                    if (hasLookahead) {
+                        hasLookahead = false;
+                        if (d != Long.MAX_VALUE) demand.decrementAndGet();
+                        subscriber.onNext(lookahead);
+                        continue;
+                    }
+                    int n = pipe.drain(this, (int) Math.min(d, batchSize));
+                    if (n > 0) {
+                        if (d != Long.MAX_VALUE) demand.addAndGet(-n);
+                        attempt = 0;
+                    } else if (wasClosed) {
+                        cancelled = terminated = true;
+                        subscriber.onComplete();
+                    } else {
+                        waitStrategy.idle(attempt++);
+                    }
+                }
+                if (!terminated && badRequest != null) {
+                    terminated = true;
+                    subscriber.onError(badRequest);
+                }
+            } catch(RuntimeException e) {
+                cancelled = true; // the subscriber broke the rules, so we are done with it...
+                if (!terminated) {
+                    try {
+                        subscriber.onError(e);
+                    } catch(RuntimeException ex) {
+                        // nothing else we can do...
+                    }
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,119 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.flow;
+
+import java.util.concurrent.Flow;
+
+import me.soliveirajr.piping.Pipe;
+import me.soliveirajr.piping.Transferable;
+import me.soliveirajr.piping.wait.BusySpinWaitStrategy;
+import me.soliveirajr.piping.wait.WaitStrategy;
+
+/**
+ * A {@link Flow.Subscriber} that dispatches everything it receives to a {@link Pipe}, copying each item into the pipe
+ * so the publisher can reuse it. It requests <code>prefetch</code> items up front and asks for more only as the items
+ * go into the pipe, so there are never more than <code>prefetch</code> items outstanding and nothing is buffered
+ * outside the pipe. If the pipe is full it waits with its {@link WaitStrategy} until the consumer catches up, holding
+ * back the demand.
+ * 
+ * Whoever receives from the pipe can check {@link #isDone()} and {@link #getError()} to know when the stream ended.
+ */
+public class PipeSubscriber<E extends Transferable<E>> implements Flow.Subscriber<E> {
+    
+    private final Pipe<E> pipe;
+    private final int prefetch;
+    private final int limit;
+    private final WaitStrategy waitStrategy;
+    
+    private volatile Flow.Subscription subscription;
+    private volatile boolean done = false;
+    private volatile Throwable error;
+    private int dispatched = 0;
+    
+    public PipeSubscriber(Pipe<E> pipe, int prefetch) {
+        this(pipe, prefetch, new BusySpinWaitStrategy());
+    }
+    
+    /**
+     * @param pipe the pipe to dispatch to
+     * @param prefetch the maximum number of items outstanding, usually the capacity of the pipe
+     * @param waitStrategy how to wait when the pipe is full
+     */
+    public PipeSubscriber(Pipe<E> pipe, int prefetch, WaitStrategy waitStrategy) {
+        if (prefetch <= 0) throw new IllegalArgumentException("Bad prefetch: " + prefetch);
+        this.pipe = pipe;
+        this.prefetch = prefetch;
+        this.limit = Math.max(1, prefetch - (prefetch >> 2)); // ask for more when three quarters are in...
+        this.waitStrategy = waitStrategy;
+    }
+    
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (this.subscription != null) {
+            subscription.cancel(); // only one publisher...
+            return;
+        }
+        this.subscription = subscription;
+        subscription.request(prefetch);
+    }
+    
+    @Override
+    public void onNext(E item) {
+        int attempt = 0;
+        while(!pipe.dispatch(item)) waitStrategy.idle(attempt++); // the pipe is full...
+        if (++dispatched == limit) {
+            dispatched = 0;
+            subscription.request(limit);
+        }
+    }
+    
+    @Override
+    public void onError(Throwable throwable) {
+        error = throwable;
+        done = true;
+    }
+    
+    @Override
+    public void onComplete() {
+        done = true;
+    }
+    
+    /**
+     * Stop receiving from the publisher
+     */
+    public void cancel() {
+        Flow.Subscription s = subscription;
+        if (s != null) s.cancel();
+    }
+    
+    /**
+     * Whether the publisher completed or failed. Everything it sent before is already in the pipe.
+     * 
+     * @return true if the stream ended
+     */
+    public boolean isDone() {
+        return done;
+    }
+    
+    /**
+     * The error the publisher failed with, if any
+     * 
+     * @return the error or null
+     */
+    public Throwable getError() {
+        return error;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,167 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import me.soliveirajr.piping.Codec;
+
+/**
+ * An append-only journal of messages written sequentially to a directory of fixed-size memory-mapped segment files.
+ * Each segment starts with a header holding its size, so it cannot be read back with a different one. Each record is
+ * the length of the encoded message plus one, the wall-clock time in nanoseconds since the epoch when it was appended
+ * and the message encoded by a {@link Codec}. The plus one lets a message encode to nothing, because a zero where the
+ * next record would start marks the end of a segment.
+ * 
+ * Appending is just a copy to mapped memory. Forcing the data to the disk is the expensive part, so it is done only
+ * once every <code>flushEvery</code> messages (or never, if zero, leaving it to the operating system), and you can
+ * always call {@link #flush()} yourself. Call {@link #close()} when you are done appending.
+ * 
+ * Only one thread may append.
+ */
+public class Journal<E> {
+    
+    static final int SEGMENT_MAGIC = 0x4A524E4C; // "JRNL"
+    static final int SEGMENT_HEADER = 8; // magic + segment size
+    static final int RECORD_HEADER = 12; // length + timestamp
+    
+    private final File directory;
+    private final int segmentSize;
+    private final Codec<E> codec;
+    private final int flushEvery;
+    
+    private int segment;
+    private MappedByteBuffer buffer;
+    private int unflushed = 0;
+    
+    // wall-clock time with the resolution of nanoTime, so timestamps can be compared across restarts...
+    private final long baseEpochNanos = System.currentTimeMillis() * 1_000_000L;
+    private final long baseNanoTime = System.nanoTime();
+    
+    /**
+     * Creates a journal or continues appending to an existing one
+     * 
+     * @param directory the directory holding the segment files
+     * @param segmentSize the size of each segment file in bytes
+     * @param codec the codec to encode the messages
+     * @param flushEvery force the data to the disk after this many messages, or zero to never force it
+     */
+    public Journal(File directory, int segmentSize, Codec<E> codec, int flushEvery) {
+        if (segmentSize < SEGMENT_HEADER + RECORD_HEADER + codec.maxSize() + 4) {
+            throw new IllegalArgumentException("Segment is too small: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.codec = codec;
+        this.flushEvery = flushEvery;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IllegalArgumentException("Cannot create journal directory: " + directory);
+        }
+        this.segment = Math.max(0, lastSegment(directory));
+        this.buffer = map(segmentFile(directory, segment), segmentSize);
+        int word;
+        while(buffer.remaining() >= RECORD_HEADER && (word = buffer.getInt(buffer.position())) != 0) { // skip what is already there...
+            buffer.position(buffer.position() + RECORD_HEADER + word - 1);
+        }
+    }
+    
+    static File segmentFile(File directory, int segment) {
+        return new File(directory, String.format("journal-%08d.seg", segment));
+    }
+    
+    /**
+     * @return the number of the last segment in the directory or -1 if there are none
+     */
+    static int lastSegment(File directory) {
+        int last = -1;
+        while(segmentFile(directory, last + 1).exists()) last++;
+        return last;
+    }
+    
+    static MappedByteBuffer map(File file, int size) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(0) == 0) { // a new segment...
+                buffer.putInt(4, size);
+                buffer.putInt(0, SEGMENT_MAGIC);
+            }
+            checkHeader(buffer, file, size);
+            buffer.position(SEGMENT_HEADER);
+            return buffer;
+        } catch(IOException e) {
+            throw new RuntimeException("Cannot map journal segment: " + file, e);
+        }
+    }
+    
+    static void checkHeader(MappedByteBuffer buffer, File file, int size) {
+        if (buffer.capacity() < SEGMENT_HEADER || buffer.getInt(0) != SEGMENT_MAGIC) {
+            throw new IllegalStateException("Not a journal segment: " + file);
+        }
+        if (buffer.getInt(4) != size) {
+            throw new IllegalStateException("Journal segment " + file + " has size " + buffer.getInt(4) + " and not " + size);
+        }
+    }
+    
+    /**
+     * Append a message to the journal
+     * 
+     * @param message the message to append
+     */
+    public void append(E message) {
+        if (buffer == null) throw new IllegalStateException("Journal is closed!");
+        if (buffer.remaining() < RECORD_HEADER + codec.maxSize() + 4) roll(); // 4 for the end marker...
+        int start = buffer.position();
+        buffer.position(start + RECORD_HEADER);
+        codec.encode(message, buffer);
+        int length = buffer.position() - start - RECORD_HEADER;
+        buffer.putLong(start + 4, baseEpochNanos + (System.nanoTime() - baseNanoTime));
+        buffer.putInt(start, length + 1); // the length goes last, plus one so it is never the end marker...
+        if (flushEvery > 0 && ++unflushed >= flushEvery) flush();
+    }
+    
+    private void roll() {
+        if (flushEvery > 0) flush();
+        buffer = map(segmentFile(directory, ++segment), segmentSize);
+    }
+    
+    /**
+     * Force everything appended so far to the disk
+     */
+    public void flush() {
+        if (buffer == null) return;
+        buffer.force();
+        unflushed = 0;
+    }
+    
+    /**
+     * Force everything appended so far to the disk and drop the mapping of the current segment. There is no way to
+     * unmap a buffer in Java, so the memory is returned once the buffer is garbage collected.
+     */
+    public void close() {
+        flush();
+        buffer = null;
+    }
+    
+    public File getDirectory() {
+        return directory;
+    }
+}
@@ -0,0 +1,115 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.locks.LockSupport;
+
+import me.soliveirajr.piping.Codec;
+import me.soliveirajr.piping.Pipe;
+import me.soliveirajr.piping.Transferable;
+import me.soliveirajr.piping.util.Builder;
+
+/**
+ * Streams the messages of a {@link Journal} back through any pipe, for example to rebuild the state of a consumer
+ * after a restart. Messages can be replayed as fast as the pipe takes them or at the pace they were recorded.
+ */
+public class JournalReplayer<E extends Transferable<E>> {
+    
+    public static enum Pace { FULL_SPEED, RECORDED }
+    
+    private final File directory;
+    private final int segmentSize;
+    private final Codec<E> codec;
+    private final E message;
+    
+    public JournalReplayer(File directory, int segmentSize, Codec<E> codec, Class<E> message) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.codec = codec;
+        try {
+            this.message = message.getDeclaredConstructor().newInstance();
+        } catch(Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    public JournalReplayer(File directory, int segmentSize, Codec<E> codec, Builder<E> message) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.codec = codec;
+        this.message = message.newInstance();
+    }
+    
+    /**
+     * Map a segment for reading only, so that replaying never changes the journal (nor grows its files), and check
+     * that it was written with the same segment size
+     */
+    private static MappedByteBuffer mapReadOnly(File file, int segmentSize) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(segmentSize, channel.size()));
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            Journal.checkHeader(buffer, file, segmentSize);
+            buffer.position(Journal.SEGMENT_HEADER);
+            return buffer;
+        } catch(IOException e) {
+            throw new RuntimeException("Cannot map journal segment: " + file, e);
+        }
+    }
+    
+    /**
+     * Dispatch every message of the journal through the pipe, waiting for space when the pipe is full
+     * 
+     * @param pipe the pipe to dispatch the messages to
+     * @param pace how fast to replay the messages
+     * @return the number of messages replayed
+     */
+    public long replay(Pipe<E> pipe, Pace pace) {
+        long count = 0;
+        long firstTimestamp = 0;
+        long start = System.nanoTime();
+        int last = Journal.lastSegment(directory);
+        for(int segment = 0; segment <= last; segment++) {
+            MappedByteBuffer buffer = mapReadOnly(Journal.segmentFile(directory, segment), segmentSize);
+            while(buffer.remaining() >= Journal.RECORD_HEADER) {
+                int position = buffer.position();
+                int word = buffer.getInt(position);
+                if (word == 0) break; // end of segment...
+                int length = word - 1;
+                long timestamp = buffer.getLong(position + 4);
+                buffer.position(position + Journal.RECORD_HEADER);
+                codec.decode(buffer, message);
+                buffer.position(position + Journal.RECORD_HEADER + length);
+                if (pace == Pace.RECORDED) {
+                    if (count == 0) firstTimestamp = timestamp;
+                    long due = start + Math.max(0, timestamp - firstTimestamp); // wall-clock, so it can go back...
+                    long now;
+                    while((now = System.nanoTime()) < due) {
+                        if (due - now > 100_000) LockSupport.parkNanos(due - now - 50_000); // wake up a bit early and spin...
+                    }
+                }
+                while(!pipe.dispatch(message)) Thread.yield();
+                count++;
+            }
+        }
+        return count;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,89 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.journal;
+
+import me.soliveirajr.piping.MessageHandler;
+import me.soliveirajr.piping.Pipe;
+import me.soliveirajr.piping.Transferable;
+
+/**
+ * A pipe that records every message going through another pipe in a {@link Journal}. You choose on which side the
+ * journaling happens: on the thread that dispatches, or on the thread that receives, which keeps the cost of
+ * journaling off the producer's critical path. The journal has a single writer, so the chosen side must have only
+ * one thread.
+ */
+public class JournalingPipe<E extends Transferable<E>> implements Pipe<E> {
+    
+    public static enum Side { DISPATCH, RECEIVE }
+    
+    private final Pipe<E> pipe;
+    private final Journal<E> journal;
+    private final Side side;
+    private final JournalingHandler journalingHandler = new JournalingHandler();
+    
+    public JournalingPipe(Pipe<E> pipe, Journal<E> journal, Side side) {
+        this.pipe = pipe;
+        this.journal = journal;
+        this.side = side;
+    }
+    
+    @Override
+    public boolean dispatch(E message) {
+        if (!pipe.dispatch(message)) return false;
+        if (side == Side.DISPATCH) journal.append(message);
+        return true;
+    }
+    
+    @Override
+    public boolean receive(E message) {
+        if (!pipe.receive(message)) return false;
+        if (side == Side.RECEIVE) journal.append(message);
+        return true;
+    }
+    
+    @Override
+    public int dispatchBatch(E[] messages, int offset, int length) {
+        int count = pipe.dispatchBatch(messages, offset, length);
+        if (side == Side.DISPATCH) {
+            for(int i = 0; i < count; i++) {
+                journal.append(messages[offset + i]);
+            }
+        }
+        return count;
+    }
+    
+    @Override
+    public int drain(MessageHandler<E> handler, int maxMessages) {
+        if (side != Side.RECEIVE) return pipe.drain(handler, maxMessages);
+        journalingHandler.handler = handler;
+        return pipe.drain(journalingHandler, maxMessages);
+    }
+    
+    public Journal<E> getJournal() {
+        return journal;
+    }
+    
+    private class JournalingHandler implements MessageHandler<E> {
+        
+        private MessageHandler<E> handler;
+        
+        @Override
+        public void onMessage(E message) {
+            journal.append(message);
+            handler.onMessage(message);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.latency;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies in nanoseconds with log-linear buckets: each power of two is split into 32 linear buckets,
+ * so any recorded value is off by at most ~3%. All the buckets are allocated once at construction and recording a
+ * value is a single atomic increment, so it is garbage-free and can be done by many threads at the same time.
+ * 
+ * A {@link Snapshot} can be taken from any other thread while values are being recorded.
+ */
+public class LatencyHistogram {
+    
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+    
+    /**
+     * Record a latency
+     * 
+     * @param nanos the latency in nanoseconds, negative values are recorded as zero
+     */
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.getAndIncrement(index(nanos));
+        long currMax = max.get();
+        while(nanos > currMax) { // almost never true after warmup...
+            if (max.compareAndSet(currMax, nanos)) break;
+            currMax = max.get();
+        }
+    }
+    
+    /**
+     * Take a snapshot of this histogram, without stopping the threads that are recording
+     * 
+     * @return a new snapshot
+     */
+    public Snapshot snapshot() {
+        return snapshot(new Snapshot());
+    }
+    
+    /**
+     * Take a snapshot of this histogram into an existing snapshot, so that a monitoring thread does not produce garbage
+     * 
+     * @param snapshot the snapshot to overwrite
+     * @return the given snapshot
+     */
+    public Snapshot snapshot(Snapshot snapshot) {
+        long count = 0;
+        for(int i = 0; i < BUCKETS; i++) {
+            long c = counts.get(i);
+            snapshot.counts[i] = c;
+            count += c;
+        }
+        snapshot.count = count;
+        snapshot.max = max.get();
+        return snapshot;
+    }
+    
+    /**
+     * Clear all the recorded values. Values recorded by other threads while resetting can be partially lost.
+     */
+    public void reset() {
+        for(int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        max.set(0);
+    }
+    
+    static int index(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+    
+    static long highestValue(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long lowest = (long) (SUB_BUCKETS + (index & (SUB_BUCKETS - 1))) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+    
+    /**
+     * A point-in-time copy of the histogram counts
+     */
+    public static class Snapshot {
+        
+        private final long[] counts = new long[BUCKETS];
+        private long count;
+        private long max;
+        
+        /**
+         * The number of recorded values
+         * 
+         * @return the count
+         */
+        public long getCount() {
+            return count;
+        }
+        
+        /**
+         * The highest recorded value
+         * 
+         * @return the max in nanoseconds
+         */
+        public long getMax() {
+            return max;
+        }
+        
+        /**
+         * The value below which the given percentage of the recorded values fall
+         * 
+         * @param percentile the percentile, from 0 to 100, for example 99.9
+         * @return the value in nanoseconds or zero if nothing was recorded
+         */
+        public long getPercentile(double percentile) {
+            if (count == 0) return 0;
+            long rank = (long) Math.ceil(percentile / 100 * count);
+            if (rank < 1) rank = 1;
+            long seen = 0;
+            for(int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.min(highestValue(i), max);
+            }
+            return max;
+        }
+        
+        /**
+         * The mean of the recorded values, computed from the buckets
+         * 
+         * @return the mean in nanoseconds
+         */
+        public double getMean() {
+            if (count == 0) return 0;
+            double total = 0;
+            for(int i = 0; i < BUCKETS; i++) {
+                if (counts[i] != 0) total += (double) counts[i] * Math.min(highestValue(i), max);
+            }
+            return total / count;
+        }
+        
+        @Override
+        public String toString() {
+            return "count=" + count + " p50=" + getPercentile(50) + " p90=" + getPercentile(90) + " p99=" + getPercentile(99) 
+                    + " p99.9=" + getPercentile(99.9) + " p99.99=" + getPercentile(99.99) + " max=" + max + " (nanos)";
+        }
+    }
+}
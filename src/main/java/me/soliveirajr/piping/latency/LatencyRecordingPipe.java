@@ -0,0 +1,145 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.latency;
+
+import me.soliveirajr.piping.MessageHandler;
+import me.soliveirajr.piping.Transferable;
+import me.soliveirajr.piping.ZeroCopyPipe;
+
+/**
+ * A pipe that measures how long each message sits inside another pipe, from dispatch to receive, and records it in a
+ * {@link LatencyHistogram}. Every slot of the pipe gets a preallocated timestamp that is written with
+ * <code>System.nanoTime()</code> right before the message is published and read right after the message is peeked, so
+ * nothing is allocated and the timestamp travels with the slot's own publication.
+ * 
+ * A batch dispatch goes through the slots one by one so that each message gets its own timestamp. A drain is
+ * delegated to the other pipe, so it keeps its single release and never blocks. The timestamp of each drained message
+ * is found from the consumer's sequence, which this pipe tracks, so draining requires a single consumer.
+ * 
+ * <pre>
+ * LatencyRecordingPipe&lt;OpMessage&gt; pipe = new LatencyRecordingPipe&lt;OpMessage&gt;(new SpscBlockingPipe&lt;OpMessage&gt;(1024, OpMessage.class));
+ * // from any other thread...
+ * System.out.println(pipe.getHistogram().snapshot());
+ * </pre>
+ */
+public class LatencyRecordingPipe<E extends Transferable<E>> implements ZeroCopyPipe<E> {
+    
+    private final ZeroCopyPipe<E> pipe;
+    private final LatencyHistogram histogram;
+    private final long[] timestamps;
+    private final int mask;
+    private final RecordingHandler recordingHandler = new RecordingHandler();
+    
+    private long received = 0; // next sequence to receive, consumer only...
+    
+    public LatencyRecordingPipe(ZeroCopyPipe<E> pipe) {
+        this(pipe, new LatencyHistogram());
+    }
+    
+    public LatencyRecordingPipe(ZeroCopyPipe<E> pipe, LatencyHistogram histogram) {
+        this.pipe = pipe;
+        this.histogram = histogram;
+        this.timestamps = new long[pipe.capacity()];
+        this.mask = timestamps.length - 1;
+    }
+    
+    @Override
+    public boolean dispatch(E message) {
+        long sequence = pipe.claim();
+        if (sequence < 0) return false; // full...
+        message.transferTo(pipe.slot(sequence));
+        publish(sequence);
+        return true;
+    }
+    
+    @Override
+    public boolean receive(E message) {
+        long sequence = peek();
+        if (sequence < 0) return false; // empty...
+        pipe.slot(sequence).transferTo(message);
+        release(sequence);
+        return true;
+    }
+    
+    @Override
+    public int dispatchBatch(E[] messages, int offset, int length) {
+        for(int i = 0; i < length; i++) {
+            if (!dispatch(messages[offset + i])) return i;
+        }
+        return length;
+    }
+    
+    @Override
+    public int drain(MessageHandler<E> handler, int maxMessages) {
+        recordingHandler.handler = handler;
+        recordingHandler.sequence = received;
+        try {
+            return pipe.drain(recordingHandler, maxMessages);
+        } finally {
+            received = recordingHandler.sequence;
+        }
+    }
+    
+    @Override
+    public long claim() {
+        return pipe.claim();
+    }
+    
+    @Override
+    public void publish(long sequence) {
+        timestamps[(int) sequence & mask] = System.nanoTime();
+        pipe.publish(sequence); // publishes the timestamp too...
+    }
+    
+    @Override
+    public long peek() {
+        long sequence = pipe.peek();
+        if (sequence >= 0) histogram.record(System.nanoTime() - timestamps[(int) sequence & mask]);
+        return sequence;
+    }
+    
+    @Override
+    public void release(long sequence) {
+        received = sequence + 1;
+        pipe.release(sequence);
+    }
+    
+    @Override
+    public E slot(long sequence) {
+        return pipe.slot(sequence);
+    }
+    
+    @Override
+    public int capacity() {
+        return pipe.capacity();
+    }
+    
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
+    
+    private class RecordingHandler implements MessageHandler<E> {
+        
+        private MessageHandler<E> handler;
+        private long sequence;
+        
+        @Override
+        public void onMessage(E message) {
+            histogram.record(System.nanoTime() - timestamps[(int) sequence++ & mask]);
+            handler.onMessage(message);
+        }
+    }
+}
\ No newline at end of file
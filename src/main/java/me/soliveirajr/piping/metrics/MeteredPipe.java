@@ -0,0 +1,127 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.metrics;
+
+import me.soliveirajr.piping.MessageHandler;
+import me.soliveirajr.piping.Pipe;
+import me.soliveirajr.piping.Transferable;
+import me.soliveirajr.piping.wait.WaitStrategy;
+
+/**
+ * A pipe that records the {@link PipeMetrics} of a non-blocking pipe. When given a {@link WaitStrategy} it also blocks
+ * like the blocking pipes do, counting every wait as a spin, so for example a metered <code>LinkedBlockingPipe</code> is:
+ * 
+ * <pre>
+ * new MeteredPipe&lt;OpMessage&gt;(new LinkedNonBlockingPipe&lt;OpMessage&gt;(1024, OpMessage.class), new BusySpinWaitStrategy());
+ * </pre>
+ * 
+ * Wrapping a pipe that blocks by itself still counts the messages, the depth and the high-water mark, but it never
+ * sees the pipe full or empty.
+ */
+public class MeteredPipe<E extends Transferable<E>> implements Pipe<E> {
+    
+    private final Pipe<E> pipe;
+    private final WaitStrategy waitStrategy;
+    private final PipeMetrics metrics;
+    
+    public MeteredPipe(Pipe<E> pipe) {
+        this(pipe, null);
+    }
+    
+    public MeteredPipe(Pipe<E> pipe, WaitStrategy waitStrategy) {
+        this(pipe, waitStrategy, new PipeMetrics());
+    }
+    
+    /**
+     * @param pipe the pipe to meter
+     * @param waitStrategy how to wait when the pipe is full or empty, or null to never block
+     * @param metrics where to record the metrics
+     */
+    public MeteredPipe(Pipe<E> pipe, WaitStrategy waitStrategy, PipeMetrics metrics) {
+        this.pipe = pipe;
+        this.waitStrategy = waitStrategy;
+        this.metrics = metrics;
+    }
+    
+    @Override
+    public boolean dispatch(E message) {
+        if (!pipe.dispatch(message)) {
+            metrics.onFull();
+            if (waitStrategy == null) return false;
+            int attempt = 0;
+            do {
+                metrics.onDispatchSpin();
+                waitStrategy.idle(attempt++); // block...
+            } while(!pipe.dispatch(message));
+        }
+        metrics.onDispatch(1);
+        if (waitStrategy != null) waitStrategy.signal();
+        return true;
+    }
+    
+    @Override
+    public boolean receive(E message) {
+        if (!pipe.receive(message)) {
+            metrics.onEmpty();
+            if (waitStrategy == null) return false;
+            int attempt = 0;
+            do {
+                metrics.onReceiveSpin();
+                waitStrategy.idle(attempt++); // block...
+            } while(!pipe.receive(message));
+        }
+        metrics.onReceive(1);
+        if (waitStrategy != null) waitStrategy.signal();
+        return true;
+    }
+    
+    @Override
+    public int dispatchBatch(E[] messages, int offset, int length) {
+        int count = 0;
+        int attempt = 0;
+        while(count < length) {
+            int dispatched = pipe.dispatchBatch(messages, offset + count, length - count);
+            if (dispatched > 0) {
+                count += dispatched;
+                attempt = 0;
+                metrics.onDispatch(dispatched);
+                if (waitStrategy != null) waitStrategy.signal();
+            } else {
+                if (attempt == 0) metrics.onFull();
+                if (waitStrategy == null) break;
+                metrics.onDispatchSpin();
+                waitStrategy.idle(attempt++); // block...
+            }
+        }
+        return count;
+    }
+    
+    @Override
+    public int drain(MessageHandler<E> handler, int maxMessages) {
+        int count = pipe.drain(handler, maxMessages);
+        if (count > 0) {
+            metrics.onReceive(count);
+            if (waitStrategy != null) waitStrategy.signal();
+        } else {
+            metrics.onEmpty();
+        }
+        return count;
+    }
+    
+    public PipeMetrics getMetrics() {
+        return metrics;
+    }
+}
@@ -0,0 +1,140 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.metrics;
+
+import me.soliveirajr.piping.util.Sequence;
+
+/**
+ * The counters of a pipe. Each counter is a padded {@link Sequence} with a single writer: the producer thread writes
+ * the dispatch side counters and the consumer thread writes the receive side counters, with cheap ordered writes
+ * and no atomic instructions, so recording adds no contention to the pipe. Any thread can read them.
+ * 
+ * With more than one producer (or consumer) thread the counters of that side become approximate.
+ */
+public class PipeMetrics implements PipeMetricsMBean {
+    
+    // written by the producer...
+    private final Sequence dispatched = new Sequence();
+    private final Sequence fullEvents = new Sequence();
+    private final Sequence dispatchSpins = new Sequence();
+    private final Sequence highWaterMark = new Sequence();
+    private long receivedCache = 0;
+    
+    // written by the consumer...
+    private final Sequence received = new Sequence();
+    private final Sequence emptyEvents = new Sequence();
+    private final Sequence receiveSpins = new Sequence();
+    
+    /**
+     * Called by the producer after dispatching messages
+     * 
+     * @param count how many messages were dispatched
+     */
+    public void onDispatch(int count) {
+        long d = dispatched.get() + count;
+        dispatched.lazySet(d);
+        if (d - receivedCache > highWaterMark.get()) { // only look at the consumer counter when the mark might move...
+            receivedCache = received.get();
+            long depth = d - receivedCache;
+            if (depth > highWaterMark.get()) highWaterMark.lazySet(depth);
+        }
+    }
+    
+    /**
+     * Called by the producer when the pipe is full
+     */
+    public void onFull() {
+        fullEvents.lazySet(fullEvents.get() + 1);
+    }
+    
+    /**
+     * Called by the producer each time it waits for space
+     */
+    public void onDispatchSpin() {
+        dispatchSpins.lazySet(dispatchSpins.get() + 1);
+    }
+    
+    /**
+     * Called by the consumer after receiving messages
+     * 
+     * @param count how many messages were received
+     */
+    public void onReceive(int count) {
+        received.lazySet(received.get() + count);
+    }
+    
+    /**
+     * Called by the consumer when the pipe is empty
+     */
+    public void onEmpty() {
+        emptyEvents.lazySet(emptyEvents.get() + 1);
+    }
+    
+    /**
+     * Called by the consumer each time it waits for a message
+     */
+    public void onReceiveSpin() {
+        receiveSpins.lazySet(receiveSpins.get() + 1);
+    }
+    
+    @Override
+    public long getDepth() {
+        long r = received.get(); // read the consumer first so the depth is never negative...
+        return Math.max(0, dispatched.get() - r);
+    }
+    
+    @Override
+    public long getHighWaterMark() {
+        return highWaterMark.get();
+    }
+    
+    @Override
+    public long getDispatched() {
+        return dispatched.get();
+    }
+    
+    @Override
+    public long getReceived() {
+        return received.get();
+    }
+    
+    @Override
+    public long getFullEvents() {
+        return fullEvents.get();
+    }
+    
+    @Override
+    public long getEmptyEvents() {
+        return emptyEvents.get();
+    }
+    
+    @Override
+    public long getDispatchSpins() {
+        return dispatchSpins.get();
+    }
+    
+    @Override
+    public long getReceiveSpins() {
+        return receiveSpins.get();
+    }
+    
+    @Override
+    public String toString() {
+        return "depth=" + getDepth() + " highWaterMark=" + getHighWaterMark() + " dispatched=" + getDispatched() 
+                + " received=" + getReceived() + " fullEvents=" + getFullEvents() + " emptyEvents=" + getEmptyEvents() 
+                + " dispatchSpins=" + getDispatchSpins() + " receiveSpins=" + getReceiveSpins();
+    }
+}
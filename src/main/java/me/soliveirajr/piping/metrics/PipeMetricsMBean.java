@@ -0,0 +1,62 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.metrics;
+
+/**
+ * The JMX view of {@link PipeMetrics}
+ */
+public interface PipeMetricsMBean {
+    
+    /**
+     * @return how many messages are in the pipe right now
+     */
+    public long getDepth();
+    
+    /**
+     * @return the highest depth the pipe ever had
+     */
+    public long getHighWaterMark();
+    
+    /**
+     * @return how many messages were dispatched
+     */
+    public long getDispatched();
+    
+    /**
+     * @return how many messages were received
+     */
+    public long getReceived();
+    
+    /**
+     * @return how many times a dispatch found the pipe full
+     */
+    public long getFullEvents();
+    
+    /**
+     * @return how many times a receive found the pipe empty
+     */
+    public long getEmptyEvents();
+    
+    /**
+     * @return how many times a dispatch waited (spun, yielded or parked) for space
+     */
+    public long getDispatchSpins();
+    
+    /**
+     * @return how many times a receive waited (spun, yielded or parked) for a message
+     */
+    public long getReceiveSpins();
+}
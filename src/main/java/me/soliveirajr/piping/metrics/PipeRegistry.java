@@ -0,0 +1,107 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * A registry of named pipe metrics that exposes each one as an MBean, so they can be watched with JConsole, VisualVM
+ * or any JMX client under <code>me.soliveirajr.piping:type=Pipe,name=...</code>.
+ * 
+ * <pre>
+ * MeteredPipe&lt;OpMessage&gt; pipe = new MeteredPipe&lt;OpMessage&gt;(new LinkedNonBlockingPipe&lt;OpMessage&gt;(1024, OpMessage.class), new BusySpinWaitStrategy());
+ * PipeRegistry.getDefault().register("orders", pipe.getMetrics());
+ * </pre>
+ */
+public class PipeRegistry {
+    
+    public static final String DEFAULT_DOMAIN = "me.soliveirajr.piping";
+    
+    private static final PipeRegistry DEFAULT = new PipeRegistry();
+    
+    private final MBeanServer server;
+    private final String domain;
+    private final Map<String, PipeMetrics> metrics = new ConcurrentHashMap<String, PipeMetrics>();
+    
+    public PipeRegistry() {
+        this(ManagementFactory.getPlatformMBeanServer(), DEFAULT_DOMAIN);
+    }
+    
+    public PipeRegistry(MBeanServer server, String domain) {
+        this.server = server;
+        this.domain = domain;
+    }
+    
+    /**
+     * The registry that uses the platform MBean server
+     * 
+     * @return the default registry
+     */
+    public static PipeRegistry getDefault() {
+        return DEFAULT;
+    }
+    
+    /**
+     * Register the metrics of a pipe under a name, replacing any metrics already registered with that name
+     * 
+     * @param name the name of the pipe
+     * @param pipeMetrics the metrics of the pipe
+     */
+    public synchronized void register(String name, PipeMetrics pipeMetrics) {
+        try {
+            ObjectName objectName = objectName(name);
+            if (server.isRegistered(objectName)) server.unregisterMBean(objectName);
+            server.registerMBean(pipeMetrics, objectName);
+            metrics.put(name, pipeMetrics);
+        } catch(Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    /**
+     * Unregister the metrics of a pipe
+     * 
+     * @param name the name of the pipe
+     * @return the metrics that were registered or null if there were none
+     */
+    public synchronized PipeMetrics unregister(String name) {
+        try {
+            ObjectName objectName = objectName(name);
+            if (server.isRegistered(objectName)) server.unregisterMBean(objectName);
+            return metrics.remove(name);
+        } catch(Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    public PipeMetrics get(String name) {
+        return metrics.get(name);
+    }
+    
+    public Set<String> getNames() {
+        return metrics.keySet();
+    }
+    
+    private ObjectName objectName(String name) throws Exception {
+        return new ObjectName(domain + ":type=Pipe,name=" + ObjectName.quote(name));
+    }
+}
@@ -0,0 +1,304 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.net;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+import me.soliveirajr.piping.Codec;
+import me.soliveirajr.piping.MessageHandler;
+import me.soliveirajr.piping.Pipe;
+import me.soliveirajr.piping.SpscNonBlockingPipe;
+import me.soliveirajr.piping.Transferable;
+import me.soliveirajr.piping.util.Builder;
+import me.soliveirajr.piping.wait.WaitStrategy;
+
+/**
+ * A pipe to a thread on another host, over a non-blocking TCP {@link SocketChannel}. Each side of the connection has
+ * its own <code>SocketPipe</code>: whatever one side dispatches the other side receives, in both directions.
+ * 
+ * The application thread never touches the socket. Dispatch copies the message into an outbound ring pipe, and the
+ * I/O thread of the {@link SocketReactor} encodes everything it finds there with the {@link Codec} into a direct
+ * buffer, each message prefixed by its length, and sends them all with a single write. On the other side the I/O
+ * thread decodes the messages straight into the slots of an inbound ring pipe, from where they are received. When the
+ * inbound pipe is full the I/O thread stops reading, so TCP pushes back on the sender.
+ * 
+ * Without a {@link WaitStrategy} it never blocks: dispatch returns false if the outbound pipe is full and receive
+ * returns false if the inbound pipe is empty. With a wait strategy both block instead. Once the connection is closed,
+ * dispatch throws and receive fails as soon as there is nothing left to receive.
+ * 
+ * Only one thread may dispatch and only one thread may receive.
+ */
+public class SocketPipe<E extends Transferable<E>> implements Pipe<E> {
+    
+    public static final int BUFFER_SIZE = 64 * 1024;
+    
+    private static final int LENGTH_SIZE = 4;
+    
+    private final SocketReactor reactor;
+    private final SocketChannel channel;
+    private final Codec<E> codec;
+    private final WaitStrategy waitStrategy;
+    private final SpscNonBlockingPipe<E> outbound;
+    private final SpscNonBlockingPipe<E> inbound;
+    private final int frameSize;
+    
+    private volatile boolean open = true;
+    private volatile IOException failure;
+    
+    // reactor thread only...
+    private final ByteBuffer writeBuffer;
+    private final ByteBuffer readBuffer;
+    private final MessageHandler<E> encoder;
+    private SelectionKey key;
+    private boolean writeBlocked = false;
+    private boolean backlog = false;
+    
+    public SocketPipe(SocketReactor reactor, SocketChannel channel, int capacity, Class<E> transferable, Codec<E> codec) {
+        this(reactor, channel, new SpscNonBlockingPipe<E>(capacity, transferable), new SpscNonBlockingPipe<E>(capacity, transferable), codec, null);
+    }
+    
+    public SocketPipe(SocketReactor reactor, SocketChannel channel, int capacity, Builder<E> transferable, Codec<E> codec) {
+        this(reactor, channel, new SpscNonBlockingPipe<E>(capacity, transferable), new SpscNonBlockingPipe<E>(capacity, transferable), codec, null);
+    }
+    
+    public SocketPipe(SocketReactor reactor, SocketChannel channel, int capacity, Class<E> transferable, Codec<E> codec, WaitStrategy waitStrategy) {
+        this(reactor, channel, new SpscNonBlockingPipe<E>(capacity, transferable), new SpscNonBlockingPipe<E>(capacity, transferable), codec, waitStrategy);
+    }
+    
+    public SocketPipe(SocketReactor reactor, SocketChannel channel, int capacity, Builder<E> transferable, Codec<E> codec, WaitStrategy waitStrategy) {
+        this(reactor, channel, new SpscNonBlockingPipe<E>(capacity, transferable), new SpscNonBlockingPipe<E>(capacity, transferable), codec, waitStrategy);
+    }
+    
+    private SocketPipe(SocketReactor reactor, SocketChannel channel, SpscNonBlockingPipe<E> outbound, SpscNonBlockingPipe<E> inbound, 
+                       Codec<E> codec, WaitStrategy waitStrategy) {
+        this.reactor = reactor;
+        this.channel = channel;
+        this.codec = codec;
+        this.waitStrategy = waitStrategy;
+        this.outbound = outbound;
+        this.inbound = inbound;
+        this.frameSize = LENGTH_SIZE + codec.maxSize();
+        int bufferSize = Math.max(BUFFER_SIZE, frameSize);
+        this.writeBuffer = ByteBuffer.allocateDirect(bufferSize).order(ByteOrder.LITTLE_ENDIAN);
+        this.readBuffer = ByteBuffer.allocateDirect(bufferSize).order(ByteOrder.LITTLE_ENDIAN);
+        this.encoder = new MessageHandler<E>() {
+            @Override
+            public void onMessage(E message) {
+                encode(message);
+            }
+        };
+        try {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true); // we do our own batching...
+        } catch(IOException e) {
+            throw new RuntimeException("Cannot configure socket channel: " + channel, e);
+        }
+        reactor.register(this);
+    }
+    
+    @Override
+    public boolean dispatch(E message) {
+        if (!open) throw new IllegalStateException("Pipe is closed!", failure);
+        if (!outbound.dispatch(message)) {
+            if (waitStrategy == null) return false; // full...
+            int attempt = 0;
+            while(!outbound.dispatch(message)) { // block...
+                if (!open) throw new IllegalStateException("Pipe is closed!", failure);
+                waitStrategy.idle(attempt++);
+            }
+        }
+        reactor.wakeup();
+        return true;
+    }
+    
+    @Override
+    public int dispatchBatch(E[] messages, int offset, int length) {
+        if (!open) throw new IllegalStateException("Pipe is closed!", failure);
+        int count = outbound.dispatchBatch(messages, offset, length);
+        if (waitStrategy != null) {
+            int attempt = 0;
+            while(count < length) { // block...
+                if (count > 0) reactor.wakeup();
+                if (!open) throw new IllegalStateException("Pipe is closed!", failure);
+                waitStrategy.idle(attempt++);
+                count += outbound.dispatchBatch(messages, offset + count, length - count);
+            }
+        }
+        if (count > 0) reactor.wakeup();
+        return count;
+    }
+    
+    @Override
+    public boolean receive(E message) {
+        if (!inbound.receive(message)) {
+            if (waitStrategy == null) return false; // empty...
+            int attempt = 0;
+            while(true) { // block...
+                boolean wasOpen = open; // read before trying, so we do not miss the last messages...
+                if (inbound.receive(message)) break;
+                if (!wasOpen) throw new IllegalStateException("Pipe is closed!", failure);
+                waitStrategy.idle(attempt++);
+            }
+        }
+        return true;
+    }
+    
+    @Override
+    public int drain(MessageHandler<E> handler, int maxMessages) {
+        return inbound.drain(handler, maxMessages);
+    }
+    
+    /**
+     * Close the connection. What was already dispatched is still sent, if the socket takes it.
+     */
+    public void close() {
+        if (open) reactor.close(this);
+    }
+    
+    public boolean isOpen() {
+        return open;
+    }
+    
+    /**
+     * The error that closed the connection, if any
+     * 
+     * @return the error or null
+     */
+    public IOException getFailure() {
+        return failure;
+    }
+    
+    public SocketChannel getChannel() {
+        return channel;
+    }
+    
+    // what follows is called by the reactor thread...
+    
+    void attach(Selector selector) throws IOException {
+        key = channel.register(selector, SelectionKey.OP_READ, this);
+    }
+    
+    /**
+     * Encode everything in the outbound pipe and write it to the socket
+     * 
+     * @return how many messages were encoded
+     */
+    int flush() throws IOException {
+        if (writeBlocked) return 0; // wait until the socket is writable...
+        int count = 0;
+        while(true) {
+            int encoded = writeBuffer.remaining() >= frameSize ? outbound.drain(encoder, writeBuffer.remaining() / frameSize) : 0;
+            count += encoded;
+            if (encoded > 0 && waitStrategy != null) waitStrategy.signal(); // a dispatch may be waiting for space...
+            if (writeBuffer.position() == 0) return count; // nothing to write...
+            writeBuffer.flip();
+            channel.write(writeBuffer); // all the messages at once...
+            writeBuffer.compact();
+            if (writeBuffer.position() > 0) { // the socket is full...
+                writeBlocked = true;
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                return count;
+            }
+            if (encoded == 0) return count;
+        }
+    }
+    
+    private void encode(E message) {
+        final int start = writeBuffer.position();
+        writeBuffer.position(start + LENGTH_SIZE);
+        codec.encode(message, writeBuffer);
+        writeBuffer.putInt(start, writeBuffer.position() - start - LENGTH_SIZE);
+    }
+    
+    void onWrite() throws IOException {
+        writeBlocked = false;
+        key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+        flush();
+    }
+    
+    void onRead() throws IOException {
+        if (channel.read(readBuffer) < 0) throw new EOFException("Connection closed by peer: " + channel);
+        pump();
+    }
+    
+    /**
+     * Decode the complete messages in the read buffer into the inbound pipe, for as long as it has space
+     * 
+     * @return how many messages were decoded
+     * @throws IOException if a frame has a length that no message of the codec can have
+     */
+    int pump() throws IOException {
+        int count = 0;
+        boolean full = false;
+        readBuffer.flip();
+        while(readBuffer.remaining() >= LENGTH_SIZE) {
+            final int start = readBuffer.position();
+            final int length = readBuffer.getInt(start);
+            if (length < 0 || length > codec.maxSize()) {
+                throw new IOException("Bad frame length " + length + " from " + channel + ", max is " + codec.maxSize());
+            }
+            if (readBuffer.remaining() < LENGTH_SIZE + length) break; // not all there yet...
+            long sequence = inbound.claim();
+            if (sequence < 0) {
+                full = true;
+                break;
+            }
+            readBuffer.position(start + LENGTH_SIZE);
+            codec.decode(readBuffer, inbound.slot(sequence));
+            readBuffer.position(start + LENGTH_SIZE + length);
+            inbound.publish(sequence);
+            count++;
+        }
+        readBuffer.compact();
+        if (full != backlog) {
+            backlog = full;
+            if (full) {
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ); // let TCP push back on the sender...
+            } else {
+                key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+            }
+        }
+        if (count > 0 && waitStrategy != null) waitStrategy.signal();
+        return count;
+    }
+    
+    boolean hasBacklog() {
+        return backlog;
+    }
+    
+    boolean hasPending() {
+        return !writeBlocked && outbound.peek() >= 0;
+    }
+    
+    void closeChannel(IOException e) {
+        failure = e;
+        open = false;
+        if (key != null) key.cancel();
+        try {
+            channel.close();
+        } catch(IOException ex) {
+            // nothing to do...
+        }
+        if (waitStrategy != null) waitStrategy.signal();
+    }
+}
\ No newline at end of file
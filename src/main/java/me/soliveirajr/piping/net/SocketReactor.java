@@ -0,0 +1,209 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.net;
+
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The I/O thread of the {@link SocketPipe}s. It owns a {@link Selector} and moves the bytes between the sockets and
+ * the pipes, so the application threads only ever call dispatch and receive. It busy spins for a number of empty
+ * rounds and then blocks in the selector until there is something to read or one of its pipes wakes it up because
+ * a message was dispatched.
+ * 
+ * One reactor can serve many pipes.
+ */
+public class SocketReactor implements Runnable {
+    
+    private final Selector selector;
+    private final int spinTries;
+    private final Queue<SocketPipe<?>> toRegister = new ConcurrentLinkedQueue<SocketPipe<?>>();
+    private final Queue<SocketPipe<?>> toClose = new ConcurrentLinkedQueue<SocketPipe<?>>();
+    private final List<SocketPipe<?>> pipes = new ArrayList<SocketPipe<?>>(); // reactor thread only...
+    
+    private final AtomicBoolean sleeping = new AtomicBoolean(false);
+    private volatile boolean running = false;
+    private Thread thread;
+    
+    public SocketReactor() {
+        this(1000);
+    }
+    
+    /**
+     * @param spinTries how many empty rounds to spin before blocking in the selector
+     */
+    public SocketReactor(int spinTries) {
+        this.spinTries = spinTries;
+        try {
+            this.selector = Selector.open();
+        } catch(IOException e) {
+            throw new RuntimeException("Cannot open selector", e);
+        }
+    }
+    
+    /**
+     * Start the I/O thread
+     */
+    public synchronized void start() {
+        if (thread != null) throw new IllegalStateException("Already started!");
+        running = true;
+        thread = new Thread(this, SocketReactor.class.getSimpleName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    /**
+     * Stop the I/O thread, closing all of its pipes
+     * 
+     * @throws InterruptedException if interrupted while waiting for the I/O thread to finish
+     */
+    public synchronized void stop() throws InterruptedException {
+        running = false;
+        selector.wakeup();
+        if (thread != null) thread.join();
+    }
+    
+    void register(SocketPipe<?> pipe) {
+        toRegister.add(pipe);
+        selector.wakeup();
+    }
+    
+    void close(SocketPipe<?> pipe) {
+        toClose.add(pipe);
+        selector.wakeup();
+    }
+    
+    /**
+     * Called by the pipes after they publish a message, to wake up the I/O thread if it is blocked in the selector.
+     * Only the first pipe to find it sleeping wakes it up, the others see that it is already awake.
+     */
+    void wakeup() {
+        VarHandle.fullFence(); // the message must be visible before we read the flag (the reactor does the opposite)...
+        if (sleeping.get() && sleeping.compareAndSet(true, false)) selector.wakeup();
+    }
+    
+    @Override
+    public void run() {
+        int idle = 0;
+        try {
+            while(running) {
+                int work = registerPending() + closePending();
+                boolean backlog = false;
+                for(int i = 0; i < pipes.size(); i++) {
+                    SocketPipe<?> pipe = pipes.get(i);
+                    try {
+                        work += pipe.flush();
+                        if (pipe.hasBacklog()) {
+                            work += pipe.pump();
+                            backlog |= pipe.hasBacklog();
+                        }
+                    } catch(IOException e) {
+                        fail(pipe, e);
+                    }
+                }
+                if (work > 0) idle = 0;
+                if (work > 0 || idle++ < spinTries) {
+                    selector.selectNow();
+                } else {
+                    sleeping.set(true);
+                    VarHandle.fullFence(); // we must see what the pipes published before they saw us awake...
+                    if (hasPending()) {
+                        selector.selectNow();
+                    } else {
+                        selector.select(backlog ? 1 : 0); // with a backlog we have to check back when the consumer catches up...
+                    }
+                    sleeping.set(false);
+                }
+                Iterator<SelectionKey> iter = selector.selectedKeys().iterator();
+                while(iter.hasNext()) {
+                    SelectionKey key = iter.next();
+                    iter.remove();
+                    SocketPipe<?> pipe = (SocketPipe<?>) key.attachment();
+                    try {
+                        if (key.isValid() && key.isWritable()) pipe.onWrite();
+                        if (key.isValid() && key.isReadable()) pipe.onRead();
+                    } catch(IOException e) {
+                        fail(pipe, e);
+                    }
+                    idle = 0;
+                }
+            }
+        } catch(IOException e) {
+            throw new RuntimeException("Selector failed", e);
+        } finally {
+            for(SocketPipe<?> pipe : pipes) pipe.closeChannel(null);
+            pipes.clear();
+            try {
+                selector.close();
+            } catch(IOException e) {
+                // nothing to do...
+            }
+        }
+    }
+    
+    private boolean hasPending() {
+        if (!toRegister.isEmpty() || !toClose.isEmpty()) return true;
+        for(int i = 0; i < pipes.size(); i++) {
+            if (pipes.get(i).hasPending()) return true;
+        }
+        return false;
+    }
+    
+    private int registerPending() {
+        int count = 0;
+        SocketPipe<?> pipe;
+        while((pipe = toRegister.poll()) != null) {
+            try {
+                pipe.attach(selector);
+                pipes.add(pipe);
+            } catch(IOException e) {
+                pipe.closeChannel(e);
+            }
+            count++;
+        }
+        return count;
+    }
+    
+    private int closePending() {
+        int count = 0;
+        SocketPipe<?> pipe;
+        while((pipe = toClose.poll()) != null) {
+            if (pipes.remove(pipe)) {
+                try {
+                    pipe.flush(); // best effort for what was dispatched before closing...
+                } catch(IOException e) {
+                    // closing anyway...
+                }
+                pipe.closeChannel(null);
+            }
+            count++;
+        }
+        return count;
+    }
+    
+    private void fail(SocketPipe<?> pipe, IOException e) {
+        pipes.remove(pipe);
+        pipe.closeChannel(e);
+    }
+}
\ No newline at end of file
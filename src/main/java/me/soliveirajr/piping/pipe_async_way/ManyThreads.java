@@ -0,0 +1,48 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.pipe_async_way;
+
+import me.soliveirajr.piping.MpscBlockingPipe;
+import me.soliveirajr.piping.Pipe;
+
+/**
+ * Same as {@link TwoThreads} but with many ThreadBs sending operations to a single ThreadA through a
+ * multi-producer/single-consumer pipe. ThreadA is still the only one touching its counter.
+ */
+public class ManyThreads {
+    
+    public static void main(String[] args) throws InterruptedException {
+        
+        final long iterations = 10_000_000;
+        final int producers = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        
+        Pipe<OpMessage> pipe = new MpscBlockingPipe<OpMessage>(1024, OpMessage.class);
+        
+        ThreadA threadA = new ThreadA(iterations * producers, pipe);
+        ThreadB[] threadBs = new ThreadB[producers];
+        for(int i = 0; i < producers; i++) {
+            threadBs[i] = new ThreadB(iterations, pipe);
+        }
+        
+        threadA.start();
+        for(ThreadB threadB : threadBs) threadB.start();
+        
+        threadA.join();
+        for(ThreadB threadB : threadBs) threadB.join();
+        
+        System.out.println(threadA + " from " + producers + " producers");
+    }
+}
@@ -18,6 +18,7 @@ package me.soliveirajr.piping.pipe_async_way;
 import me.soliveirajr.piping.LinkedBlockingPipe;
 import me.soliveirajr.piping.LinkedNonBlockingPipe;
 import me.soliveirajr.piping.Pipe;
+import me.soliveirajr.piping.SpscBlockingPipe;
 
 public class TwoThreads {
     
@@ -27,7 +28,25 @@ public class TwoThreads {
         
         {
         
-            Pipe<OpMessage> pipe = new LinkedBlockingPipe<OpMessage>(1024, OpMessage.class);
+            Pipe<OpMessage> pipe = new LinkedBlockingPipe<OpMessage>(1024, new OpMessageBuilder());
+            
+            ThreadA threadA = new ThreadA(iterations, pipe);
+            ThreadB threadB = new ThreadB(iterations, pipe);
+            
+            threadA.start();
+            threadB.start();
+            
+            threadA.join();
+            threadB.join();
+            
+            System.out.println(threadA);
+        }
+        
+        System.out.println("\nNow with a lock-free single-producer/single-consumer ring pipe...\n");
+        
+        {
+        
+            Pipe<OpMessage> pipe = new SpscBlockingPipe<OpMessage>(1024, new OpMessageBuilder());
             
             ThreadA threadA = new ThreadA(iterations, pipe);
             ThreadB threadB = new ThreadB(iterations, pipe);
@@ -45,7 +64,7 @@ public class TwoThreads {
         
         {
             
-            Pipe<OpMessage> pipe = new LinkedNonBlockingPipe<OpMessage>(1024, OpMessage.class);
+            Pipe<OpMessage> pipe = new LinkedNonBlockingPipe<OpMessage>(1024, new OpMessageBuilder());
             
             ThreadA threadA = new ThreadA(iterations, pipe);
             ThreadB threadB = new ThreadB(iterations, pipe);
@@ -0,0 +1,179 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.pipe_async_way;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import me.soliveirajr.piping.Pipe;
+import me.soliveirajr.piping.SpscParkingPipe;
+
+/**
+ * Same as {@link TwoThreads} but with thousands of ThreadA/ThreadB pairs, each pair with its own
+ * {@link SpscParkingPipe}, running on virtual threads. A waiting thread parks instead of spinning, so it gives its
+ * carrier thread to the other pairs. The executor creates the threads, so each side of a pair is a plain
+ * {@link Runnable} doing the same work as {@link ThreadA} and {@link ThreadB}.
+ * 
+ * Virtual threads are only available from Java 21, so on an older JVM the pairs run on platform threads instead, and
+ * by default there are only two pairs per processor.
+ */
+public class VirtualThreads {
+    
+    public static void main(String[] args) throws InterruptedException {
+        
+        ExecutorService executor = newVirtualThreadExecutor();
+        final boolean virtual = executor != null;
+        if (virtual) {
+            System.out.println("Running on virtual threads...");
+        } else {
+            System.out.println("No virtual threads on Java " + System.getProperty("java.version") + ", running on platform threads...");
+        }
+        
+        final int pairs = args.length > 0 ? Integer.parseInt(args[0]) : (virtual ? 10_000 : 2 * Runtime.getRuntime().availableProcessors());
+        final long iterations = args.length > 1 ? Long.parseLong(args[1]) : 10_000;
+        
+        TaskA[] taskAs = new TaskA[pairs];
+        TaskB[] taskBs = new TaskB[pairs];
+        for(int i = 0; i < pairs; i++) {
+            Pipe<OpMessage> pipe = new SpscParkingPipe<OpMessage>(64, OpMessage.class);
+            taskAs[i] = new TaskA(iterations, pipe);
+            taskBs[i] = new TaskB(iterations, pipe);
+        }
+        
+        if (!virtual) executor = Executors.newFixedThreadPool(2 * pairs); // one platform thread for each ThreadA/ThreadB...
+        
+        long start = System.nanoTime();
+        
+        for(int i = 0; i < pairs; i++) {
+            executor.execute(taskAs[i]);
+            executor.execute(taskBs[i]);
+        }
+        
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        
+        long elapsed = System.nanoTime() - start;
+        
+        String expected = taskAs[0].toString();
+        for(int i = 1; i < pairs; i++) {
+            if (!taskAs[i].toString().equals(expected)) {
+                throw new IllegalStateException("Pair " + i + " is different: " + taskAs[i] + " != " + expected);
+            }
+        }
+        
+        System.out.println(pairs + " pairs, every " + expected);
+        System.out.println("Took " + TimeUnit.NANOSECONDS.toMillis(elapsed) + " millis");
+    }
+    
+    /**
+     * The work of {@link ThreadA} without being a thread
+     */
+    private static class TaskA implements Runnable {
+        
+        private long counter;
+        private long operations = 0;
+        private final long iterations;
+        private final Pipe<OpMessage> pipe;
+        private final OpMessage toReceive = new OpMessage();
+        
+        TaskA(long iterations, Pipe<OpMessage> pipe) {
+            this.iterations = iterations;
+            this.pipe = pipe;
+        }
+        
+        private void incrementBy(long x) {
+            counter += x;
+            operations++;
+        }
+        
+        private void decrementBy(long x) {
+            counter -= x;
+            operations++;
+        }
+        
+        @Override
+        public void run() {
+            long i = 0;
+            while(i++ < iterations) {
+                long x = i % 10;
+                if (x % 2 == 0) {
+                    incrementBy(2 * x);
+                } else {
+                    decrementBy(x);
+                }
+                if (pipe.receive(toReceive)) {
+                    if (toReceive.op == OpMessage.Op.ADD) {
+                        incrementBy(toReceive.value);
+                    } else if (toReceive.op == OpMessage.Op.SUB) {
+                        decrementBy(toReceive.value);
+                    } else {
+                        throw new IllegalStateException("Don't know this op: " + toReceive.op);
+                    }
+                }
+            }
+        }
+        
+        @Override
+        public String toString() {
+            return ThreadA.class.getSimpleName() + " with counter=" + counter + " after " + operations + " operations";
+        }
+    }
+    
+    /**
+     * The work of {@link ThreadB} without being a thread
+     */
+    private static class TaskB implements Runnable {
+        
+        private final long iterations;
+        private final Pipe<OpMessage> pipe;
+        private final OpMessage toSend = new OpMessage();
+        
+        TaskB(long iterations, Pipe<OpMessage> pipe) {
+            this.iterations = iterations;
+            this.pipe = pipe;
+        }
+        
+        @Override
+        public void run() {
+            long i = 0;
+            while(i++ < iterations) {
+                long x = i % 10;
+                if (x % 2 == 0) {
+                    toSend.op = OpMessage.Op.SUB;
+                    toSend.value = x;
+                } else {
+                    toSend.op = OpMessage.Op.ADD;
+                    toSend.value = 2 * x;
+                }
+                if (!pipe.dispatch(toSend)) {
+                    throw new RuntimeException("Cannot send operation!");
+                }
+            }
+        }
+    }
+    
+    /**
+     * @return the virtual thread executor or null if this JVM does not have virtual threads
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch(Exception e) {
+            return null;
+        }
+    }
+}
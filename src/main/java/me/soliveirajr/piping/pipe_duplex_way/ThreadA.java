@@ -0,0 +1,77 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.pipe_duplex_way;
+
+import me.soliveirajr.piping.DuplexChannel;
+import me.soliveirajr.piping.MessageHandler;
+
+public class ThreadA extends Thread implements MessageHandler<OpMessage> {
+    
+    private long counter;
+    private long operations = 0;
+    private long served = 0;
+    private final long iterations;
+    private final DuplexChannel<OpMessage> channel;
+    
+    public ThreadA(long iterations, DuplexChannel<OpMessage> channel) {
+        this.iterations = iterations;
+        this.channel = channel;
+    }
+    
+    public void incrementBy(long x) {
+        counter += x;
+        operations++;
+    }
+    
+    public void decrementBy(long x) {
+        counter -= x;
+        operations++;
+    }
+    
+    @Override
+    public void onMessage(OpMessage request) {
+        if (request.op == OpMessage.Op.ADD) {
+            incrementBy(request.value);
+        } else if (request.op == OpMessage.Op.SUB) {
+            decrementBy(request.value);
+        } else {
+            throw new IllegalStateException("Don't know this op: " + request.op);
+        }
+        request.counter = counter; // the reply goes in the same message...
+        served++;
+    }
+    
+    @Override
+    public void run() {
+        long i = 0;
+        while(i < iterations || served < iterations) {
+            if (i++ < iterations) {
+                long x = i % 10;
+                if (x % 2 == 0) {
+                    incrementBy(2 * x);
+                } else {
+                    decrementBy(x);
+                }
+            }
+            channel.serve(this, 64);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return ThreadA.class.getSimpleName() + " with counter=" + counter + " after " + operations + " operations";
+    }
+}
@@ -0,0 +1,74 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.pipe_duplex_way;
+
+import me.soliveirajr.piping.DuplexChannel;
+
+/**
+ * Sends the operations to ThreadA and gets back ThreadA's counter after each one. With a window of 1 each operation
+ * is a synchronous call, with a bigger window up to that many operations are in flight at the same time.
+ */
+public class ThreadB extends Thread {
+    
+    private final long iterations;
+    private final int window;
+    private final DuplexChannel<OpMessage> channel;
+    private final OpMessage toSend = new OpMessage();
+    private final OpMessage reply = new OpMessage();
+    private long lastCounter;
+    
+    public ThreadB(long iterations, int window, DuplexChannel<OpMessage> channel) {
+        this.iterations = iterations;
+        this.window = window;
+        this.channel = channel;
+    }
+    
+    @Override
+    public void run() {
+        long i = 0;
+        long replies = 0;
+        while(replies < iterations) {
+            if (i < iterations && channel.getOutstanding() < window) {
+                i++;
+                long x = i % 10;
+                if (x % 2 == 0) {
+                    toSend.op = OpMessage.Op.SUB;
+                    toSend.value = x;
+                } else {
+                    toSend.op = OpMessage.Op.ADD;
+                    toSend.value = 2 * x;
+                }
+                if (window == 1) {
+                    channel.call(toSend); // the reply comes back in the same message...
+                    lastCounter = toSend.counter;
+                    replies++;
+                    continue;
+                }
+                if (channel.send(toSend) < 0) {
+                    throw new RuntimeException("Cannot send operation!");
+                }
+            }
+            if (channel.receive(reply) >= 0) {
+                lastCounter = reply.counter;
+                replies++;
+            }
+        }
+    }
+    
+    public long getLastCounter() {
+        return lastCounter;
+    }
+}
@@ -0,0 +1,58 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.pipe_duplex_way;
+
+import me.soliveirajr.piping.DuplexChannel;
+
+/**
+ * Same as the {@link me.soliveirajr.piping.pipe_sync_way.TwoThreads} but through a {@link DuplexChannel}, where the
+ * request carries its own reply, first with synchronous calls and then pipelining the requests.
+ */
+public class TwoThreads {
+    
+    public static void main(String[] args) throws InterruptedException {
+        
+        final long iterations = args.length > 0 ? Long.parseLong(args[0]) : 10_000_000;
+        final int window = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        
+        run(iterations, 1);
+        
+        System.out.println("\nNow with up to " + window + " requests in flight...\n");
+        
+        run(iterations, window);
+    }
+    
+    private static void run(long iterations, int window) throws InterruptedException {
+        
+        DuplexChannel<OpMessage> channel = new DuplexChannel<OpMessage>(window, OpMessage.class);
+        
+        ThreadA threadA = new ThreadA(iterations, channel);
+        ThreadB threadB = new ThreadB(iterations, window, channel);
+        
+        long start = System.nanoTime();
+        
+        threadA.start();
+        threadB.start();
+        
+        threadA.join();
+        threadB.join();
+        
+        long elapsed = System.nanoTime() - start;
+        
+        System.out.println(threadA + ", last reply with counter=" + threadB.getLastCounter());
+        System.out.println("Took " + elapsed / 1_000_000 + " millis");
+    }
+}
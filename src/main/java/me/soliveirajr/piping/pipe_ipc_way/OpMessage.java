@@ -0,0 +1,49 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.pipe_ipc_way;
+
+import me.soliveirajr.piping.Flyweight;
+
+public class OpMessage extends Flyweight<OpMessage> {
+
+    public static enum Op { ADD, SUB }
+    
+    private static final Op[] OPS = Op.values();
+    
+    private static final int VALUE = 0;
+    private static final int OP = 8;
+    
+    @Override
+    public int size() {
+        return 9;
+    }
+    
+    public Op op() {
+        return OPS[buffer.get(offset + OP)];
+    }
+    
+    public void op(Op op) {
+        buffer.put(offset + OP, (byte) op.ordinal());
+    }
+    
+    public long value() {
+        return buffer.getLong(offset + VALUE);
+    }
+    
+    public void value(long value) {
+        buffer.putLong(offset + VALUE, value);
+    }
+}
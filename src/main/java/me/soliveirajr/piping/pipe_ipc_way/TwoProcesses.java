@@ -0,0 +1,49 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.pipe_ipc_way;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Runs ThreadA and ThreadB in two different processes (JVMs) talking through a memory-mapped file pipe.
+ */
+public class TwoProcesses {
+    
+    public static void main(String[] args) throws IOException, InterruptedException {
+        
+        final long iterations = args.length > 0 ? Long.parseLong(args[0]) : 10_000_000;
+        
+        File file = File.createTempFile("piping", ".pipe");
+        file.delete(); // we want a fresh pipe...
+        file.deleteOnExit();
+        
+        Process processA = start(ThreadA.class, file, iterations);
+        Process processB = start(ThreadB.class, file, iterations);
+        
+        if (processA.waitFor() != 0 || processB.waitFor() != 0) {
+            throw new IllegalStateException("A process failed!");
+        }
+    }
+    
+    private static Process start(Class<?> main, File file, long iterations) throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), 
+                                                    main.getName(), file.getPath(), String.valueOf(iterations));
+        builder.inheritIO();
+        return builder.start();
+    }
+}
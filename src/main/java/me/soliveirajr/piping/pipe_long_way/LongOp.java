@@ -0,0 +1,38 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.pipe_long_way;
+
+/**
+ * Encodes an ADD/SUB operation and its value into a single long: the value goes in the upper 63 bits and the
+ * operation in the lowest bit.
+ */
+public class LongOp {
+    
+    public static final long ADD = 0;
+    public static final long SUB = 1;
+    
+    public static long encode(long op, long value) {
+        return (value << 1) | op;
+    }
+    
+    public static long op(long encoded) {
+        return encoded & 1;
+    }
+    
+    public static long value(long encoded) {
+        return encoded >> 1;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,68 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.pipe_long_way;
+
+import me.soliveirajr.piping.LongPipe;
+
+public class ThreadA extends Thread {
+    
+    private long counter;
+    private long operations = 0;
+    private final long iterations;
+    private final LongPipe pipe;
+    
+    public ThreadA(long iterations, LongPipe pipe) {
+        this.iterations = iterations;
+        this.pipe = pipe;
+    }
+    
+    public void incrementBy(long x) {
+        counter += x;
+        operations++;
+    }
+    
+    public void decrementBy(long x) {
+        counter -= x;
+        operations++;
+    }
+    
+    @Override
+    public void run() {
+        long i = 0;
+        while(i++ < iterations) {
+            long x = i % 10;
+            if (x % 2 == 0) {
+                incrementBy(2 * x);
+            } else {
+                decrementBy(x);
+            }
+            if (pipe.receive()) {
+                long encoded = pipe.value();
+                if (LongOp.op(encoded) == LongOp.ADD) {
+                    incrementBy(LongOp.value(encoded));
+                } else {
+                    decrementBy(LongOp.value(encoded));
+                }
+            }
+            
+        }
+    }
+
+    @Override
+    public String toString() {
+        return ThreadA.class.getSimpleName() + " with counter=" + counter + " after " + operations + " operations";
+    }
+}
\ No newline at end of file
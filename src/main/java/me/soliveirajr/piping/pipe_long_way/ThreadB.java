@@ -0,0 +1,46 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.pipe_long_way;
+
+import me.soliveirajr.piping.LongPipe;
+
+public class ThreadB extends Thread {
+    
+    private final long iterations;
+    private final LongPipe pipe;
+    
+    public ThreadB(long iterations, LongPipe pipe) {
+        this.iterations = iterations;
+        this.pipe = pipe;
+    }
+    
+    @Override
+    public void run() {
+        long i = 0;
+        while(i++ < iterations) {
+            long x = i % 10;
+            long encoded;
+            if (x % 2 == 0) {
+                encoded = LongOp.encode(LongOp.SUB, x);
+            } else {
+                encoded = LongOp.encode(LongOp.ADD, 2 * x);
+            }
+            if (!pipe.dispatch(encoded)) {
+                throw new RuntimeException("Cannot send operation!");
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,84 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.pipe_sharded_way;
+
+import me.soliveirajr.piping.KeyExtractor;
+import me.soliveirajr.piping.MpscBlockingPipe;
+import me.soliveirajr.piping.PartitionedPipe;
+import me.soliveirajr.piping.Pipe;
+import me.soliveirajr.piping.util.Builder;
+import me.soliveirajr.piping.wait.YieldingWaitStrategy;
+
+/**
+ * Same as the {@link me.soliveirajr.piping.pipe_async_way.TwoThreads} but with ThreadA's counter split per key and
+ * the keys sharded across one ThreadA per partition, so the work is spread across cores. The number of partitions
+ * defaults to the number of cores and there are as many ThreadBs as partitions.
+ */
+public class ShardedThreads {
+    
+    public static void main(String[] args) throws InterruptedException {
+        
+        final int partitions = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        final long iterations = args.length > 1 ? Long.parseLong(args[1]) : 10_000_000;
+        final int keys = 1024;
+        
+        PartitionedPipe<OpMessage> pipe = new PartitionedPipe<OpMessage>(1, new KeyExtractor<OpMessage>() {
+            @Override
+            public long keyOf(OpMessage message) {
+                return message.key;
+            }
+        }, new Builder<Pipe<OpMessage>>() {
+            @Override
+            public Pipe<OpMessage> newInstance() {
+                return new MpscBlockingPipe<OpMessage>(1024, OpMessage.class, new YieldingWaitStrategy());
+            }
+        });
+        
+        pipe.rebalance(partitions); // before using it...
+        
+        ThreadA[] threadAs = new ThreadA[partitions];
+        for(int i = 0; i < partitions; i++) {
+            threadAs[i] = new ThreadA(keys, pipe.getPartition(i));
+        }
+        ThreadB[] threadBs = new ThreadB[partitions];
+        for(int i = 0; i < partitions; i++) {
+            threadBs[i] = new ThreadB(iterations, keys, pipe);
+        }
+        
+        long start = System.nanoTime();
+        
+        for(ThreadA threadA : threadAs) threadA.start();
+        for(ThreadB threadB : threadBs) threadB.start();
+        
+        for(ThreadB threadB : threadBs) threadB.join();
+        for(ThreadA threadA : threadAs) threadA.finish();
+        for(ThreadA threadA : threadAs) threadA.join();
+        
+        long elapsed = System.nanoTime() - start;
+        
+        long counter = 0;
+        long operations = 0;
+        for(ThreadA threadA : threadAs) {
+            for(int key = 0; key < keys; key++) {
+                counter += threadA.getCounter(key);
+            }
+            operations += threadA.getOperations();
+        }
+        
+        System.out.println("Counter=" + counter + " after " + operations + " operations on " + partitions + " partitions");
+        System.out.printf("Took %,d millis, %,d operations/sec%n", elapsed / 1_000_000, operations * 1_000_000_000L / elapsed);
+    }
+}
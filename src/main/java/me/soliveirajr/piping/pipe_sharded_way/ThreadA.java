@@ -0,0 +1,80 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.pipe_sharded_way;
+
+import me.soliveirajr.piping.MessageHandler;
+import me.soliveirajr.piping.Pipe;
+import me.soliveirajr.piping.wait.WaitStrategy;
+import me.soliveirajr.piping.wait.YieldingWaitStrategy;
+
+/**
+ * Owns the counters of the keys of one partition. It is the only thread touching them.
+ */
+public class ThreadA extends Thread implements MessageHandler<OpMessage> {
+    
+    private final long[] counters; // indexed by key, but only the keys of this partition are used
+    private long operations = 0;
+    private final Pipe<OpMessage> pipe;
+    private final WaitStrategy waitStrategy = new YieldingWaitStrategy();
+    private volatile boolean running = true;
+    
+    public ThreadA(int keys, Pipe<OpMessage> pipe) {
+        this.counters = new long[keys];
+        this.pipe = pipe;
+    }
+    
+    @Override
+    public void onMessage(OpMessage message) {
+        if (message.op == OpMessage.Op.ADD) {
+            counters[message.key] += message.value;
+        } else if (message.op == OpMessage.Op.SUB) {
+            counters[message.key] -= message.value;
+        } else {
+            throw new IllegalStateException("Don't know this op: " + message.op);
+        }
+        operations++;
+    }
+    
+    @Override
+    public void run() {
+        int attempt = 0;
+        while(true) {
+            boolean stopping = !running;
+            if (pipe.drain(this, 256) > 0) {
+                attempt = 0;
+            } else if (stopping) {
+                break; // nothing left...
+            } else {
+                waitStrategy.idle(attempt++);
+            }
+        }
+    }
+    
+    /**
+     * Stop after receiving everything that is still in the pipe
+     */
+    public void finish() {
+        running = false;
+    }
+    
+    public long getCounter(int key) {
+        return counters[key];
+    }
+    
+    public long getOperations() {
+        return operations;
+    }
+}
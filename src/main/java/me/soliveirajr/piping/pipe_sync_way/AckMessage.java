@@ -16,7 +16,9 @@
 package me.soliveirajr.piping.pipe_sync_way;
 
 import me.soliveirajr.piping.Transferable;
+import me.soliveirajr.piping.codegen.GenerateTransfer;
 
+@GenerateTransfer
 public class AckMessage implements Transferable<AckMessage> {
 
     @Override
@@ -16,7 +16,9 @@
 package me.soliveirajr.piping.pipe_sync_way;
 
 import me.soliveirajr.piping.Transferable;
+import me.soliveirajr.piping.codegen.GenerateTransfer;
 
+@GenerateTransfer
 public class OpMessage implements Transferable<OpMessage> {
 
     public static enum Op { ADD, SUB }
@@ -26,7 +28,6 @@ public class OpMessage implements Transferable<OpMessage> {
     
     @Override
     public void transferTo(OpMessage dest) {
-        dest.op = this.op;
-        dest.value = this.value;
+        OpMessageTransfers.transfer(this, dest);
     }
 }
\ No newline at end of file
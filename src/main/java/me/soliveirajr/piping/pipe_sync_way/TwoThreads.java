@@ -18,6 +18,7 @@ package me.soliveirajr.piping.pipe_sync_way;
 import me.soliveirajr.piping.LinkedBlockingPipe;
 import me.soliveirajr.piping.LinkedNonBlockingPipe;
 import me.soliveirajr.piping.Pipe;
+import me.soliveirajr.piping.SpscBlockingPipe;
 
 public class TwoThreads {
     
@@ -27,8 +28,27 @@ public class TwoThreads {
         
         {
         
-            Pipe<OpMessage> inPipe = new LinkedBlockingPipe<OpMessage>(1024, OpMessage.class);
-            Pipe<AckMessage> outPipe = new LinkedBlockingPipe<AckMessage>(1, AckMessage.class);
+            Pipe<OpMessage> inPipe = new LinkedBlockingPipe<OpMessage>(1024, new OpMessageBuilder());
+            Pipe<AckMessage> outPipe = new LinkedBlockingPipe<AckMessage>(1, new AckMessageBuilder());
+            
+            ThreadA threadA = new ThreadA(iterations, outPipe, inPipe);
+            ThreadB threadB = new ThreadB(iterations, inPipe, outPipe);
+            
+            threadA.start();
+            threadB.start();
+            
+            threadA.join();
+            threadB.join();
+            
+            System.out.println(threadA);
+        }
+        
+        System.out.println("\nNow with lock-free single-producer/single-consumer ring pipes...\n");
+        
+        {
+        
+            Pipe<OpMessage> inPipe = new SpscBlockingPipe<OpMessage>(1024, new OpMessageBuilder());
+            Pipe<AckMessage> outPipe = new SpscBlockingPipe<AckMessage>(1, new AckMessageBuilder());
             
             ThreadA threadA = new ThreadA(iterations, outPipe, inPipe);
             ThreadB threadB = new ThreadB(iterations, inPipe, outPipe);
@@ -46,8 +66,8 @@ public class TwoThreads {
         
         {
             
-            Pipe<OpMessage> inPipe = new LinkedNonBlockingPipe<OpMessage>(1024, OpMessage.class);
-            Pipe<AckMessage> outPipe = new LinkedNonBlockingPipe<AckMessage>(1, AckMessage.class);
+            Pipe<OpMessage> inPipe = new LinkedNonBlockingPipe<OpMessage>(1024, new OpMessageBuilder());
+            Pipe<AckMessage> outPipe = new LinkedNonBlockingPipe<AckMessage>(1, new AckMessageBuilder());
             
             ThreadA threadA = new ThreadA(iterations, outPipe, inPipe);
             ThreadB threadB = new ThreadB(iterations, inPipe, outPipe);
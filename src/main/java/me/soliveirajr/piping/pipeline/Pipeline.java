@@ -0,0 +1,239 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.pipeline;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import me.soliveirajr.piping.Transferable;
+import me.soliveirajr.piping.util.Builder;
+import me.soliveirajr.piping.util.Sequence;
+import me.soliveirajr.piping.wait.WaitStrategy;
+
+/**
+ * A single producer and many consumer {@link Stage}s sharing one preallocated ring of messages, like the Disruptor.
+ * Each stage waits on the sequences of its upstream stages (its barrier) and then handles the messages in place, so a
+ * message is copied only once, when it is dispatched, and goes through all the stages with no queues in between.
+ * A stage can change the message for the stages downstream of it. The producer waits on the last stages so that it
+ * never overwrites a message that is still being handled.
+ * 
+ * Build it with a {@link PipelineBuilder}. Only one thread may dispatch.
+ */
+public class Pipeline<E extends Transferable<E>> {
+    
+    private final E[] slots;
+    private final int capacity;
+    private final int mask;
+    private final List<Stage<E>> stages;
+    private final Stage<E>[] terminals;
+    private final WaitStrategy waitStrategy;
+    private final Sequence cursor = new Sequence(); // next sequence to publish, written by the producer
+    
+    private long next = 0; // next sequence to claim
+    private long gatingCache = 0; // producer's last view of the slowest terminal stage
+    
+    private volatile boolean running = false;
+    private Thread[] threads;
+    
+    Pipeline(int capacity, Class<E> transferable, List<Stage<E>> stages, WaitStrategy waitStrategy) {
+        this.slots = newSlots(capacity);
+        this.capacity = slots.length;
+        this.mask = this.capacity - 1;
+        this.stages = Collections.unmodifiableList(new ArrayList<Stage<E>>(stages));
+        this.terminals = terminals(stages);
+        this.waitStrategy = waitStrategy;
+        init(transferable);
+    }
+    
+    Pipeline(int capacity, Builder<E> transferable, List<Stage<E>> stages, WaitStrategy waitStrategy) {
+        this.slots = newSlots(capacity);
+        this.capacity = slots.length;
+        this.mask = this.capacity - 1;
+        this.stages = Collections.unmodifiableList(new ArrayList<Stage<E>>(stages));
+        this.terminals = terminals(stages);
+        this.waitStrategy = waitStrategy;
+        init(transferable);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <E> E[] newSlots(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Bad capacity: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size != capacity) size <<= 1; // round up to the next power of two...
+        return (E[]) new Transferable<?>[size];
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <E> Stage<E>[] terminals(List<Stage<E>> stages) {
+        List<Stage<E>> terminals = new ArrayList<Stage<E>>();
+        for(Stage<E> stage : stages) {
+            if (stage.terminal) terminals.add(stage);
+        }
+        return terminals.toArray((Stage<E>[]) new Stage<?>[terminals.size()]);
+    }
+    
+    private void init(Class<E> transferable) {
+        try {
+            for(int i = 0; i < slots.length; i++) {
+                slots[i] = transferable.getDeclaredConstructor().newInstance();
+            }
+        } catch(Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    private void init(Builder<E> transferable) {
+        try {
+            for(int i = 0; i < slots.length; i++) {
+                slots[i] = transferable.newInstance();
+            }
+        } catch(Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    /**
+     * Start one thread for each stage
+     */
+    public synchronized void start() {
+        if (threads != null) throw new IllegalStateException("Pipeline was already started!");
+        running = true;
+        threads = new Thread[stages.size()];
+        for(int i = 0; i < threads.length; i++) {
+            final Stage<E> stage = stages.get(i);
+            threads[i] = new Thread("pipeline-" + stage.name) {
+                @Override
+                public void run() {
+                    handle(stage);
+                }
+            };
+            threads[i].start();
+        }
+    }
+    
+    /**
+     * Wait until all the stages have handled every published message and then stop their threads
+     * 
+     * @throws InterruptedException if interrupted while waiting for the threads to finish
+     */
+    public synchronized void stop() throws InterruptedException {
+        if (threads == null || !running) return;
+        long published = cursor.get();
+        int attempt = 0;
+        while(minimum(terminals) < published) waitStrategy.idle(attempt++);
+        running = false;
+        waitStrategy.signal();
+        for(Thread thread : threads) thread.join();
+    }
+    
+    /**
+     * Claim the next slot so it can be written in place. Blocks until the slowest stage is done with it.
+     * 
+     * @return the sequence of the claimed slot
+     */
+    public long claim() {
+        final long sequence = next;
+        if (sequence - gatingCache >= capacity) {
+            int attempt = 0;
+            while(sequence - (gatingCache = minimum(terminals)) >= capacity) waitStrategy.idle(attempt++); // block...
+        }
+        next = sequence + 1;
+        return sequence;
+    }
+    
+    /**
+     * The pooled message of a claimed sequence
+     * 
+     * @param sequence the sequence returned by claim
+     * @return the message instance in that slot
+     */
+    public E slot(long sequence) {
+        return slots[(int) sequence & mask];
+    }
+    
+    /**
+     * Make a claimed slot visible to the first stages
+     * 
+     * @param sequence the sequence returned by claim
+     */
+    public void publish(long sequence) {
+        cursor.lazySet(sequence + 1);
+        waitStrategy.signal();
+    }
+    
+    /**
+     * Copy a message into the next slot and publish it. Blocks until there is a free slot.
+     * 
+     * @param message the message to dispatch
+     */
+    public void dispatch(E message) {
+        long sequence = claim();
+        message.transferTo(slots[(int) sequence & mask]);
+        publish(sequence);
+    }
+    
+    public List<Stage<E>> getStages() {
+        return stages;
+    }
+    
+    public int capacity() {
+        return capacity;
+    }
+    
+    private void handle(Stage<E> stage) {
+        final Thread thread = Thread.currentThread();
+        long sequence = stage.sequence.get();
+        int attempt = 0;
+        while(true) {
+            long available = stage.upstream.length == 0 ? cursor.get() : minimum(stage.upstream); // the barrier...
+            if (available > sequence) {
+                while(sequence < available) {
+                    try {
+                        stage.handler.onMessage(slots[(int) sequence & mask]);
+                    } catch(RuntimeException e) {
+                        thread.getUncaughtExceptionHandler().uncaughtException(thread, e); // report and move on...
+                    }
+                    sequence++;
+                }
+                stage.sequence.lazySet(sequence); // hand the whole batch downstream at once...
+                waitStrategy.signal();
+                attempt = 0;
+            } else if (running) {
+                waitStrategy.idle(attempt++);
+            } else {
+                break;
+            }
+        }
+    }
+    
+    private static long minimum(Stage<?>[] stages) {
+        long minimum = Long.MAX_VALUE;
+        for(Stage<?> stage : stages) {
+            long sequence = stage.sequence.get();
+            if (sequence < minimum) minimum = sequence;
+        }
+        return minimum;
+    }
+    
+    @Override
+    public String toString() {
+        return Pipeline.class.getSimpleName() + " cursor=" + cursor + " stages=" + Arrays.toString(stages.toArray());
+    }
+}
@@ -0,0 +1,103 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import me.soliveirajr.piping.MessageHandler;
+import me.soliveirajr.piping.Transferable;
+import me.soliveirajr.piping.util.Builder;
+import me.soliveirajr.piping.wait.BusySpinWaitStrategy;
+import me.soliveirajr.piping.wait.WaitStrategy;
+
+/**
+ * Wires the stages of a {@link Pipeline}. Each stage declares the stages it depends on, so you can build a chain or
+ * any DAG, for example a journal stage in parallel with a validate stage, both before an apply stage:
+ * 
+ * <pre>
+ * PipelineBuilder&lt;OrderMessage&gt; builder = new PipelineBuilder&lt;OrderMessage&gt;(1024, OrderMessage.class);
+ * Stage&lt;OrderMessage&gt; decode = builder.stage("decode", decoder);
+ * Stage&lt;OrderMessage&gt; journal = builder.stage("journal", journaler, decode);
+ * Stage&lt;OrderMessage&gt; validate = builder.stage("validate", validator, decode);
+ * Stage&lt;OrderMessage&gt; apply = builder.stage("apply", applier, journal, validate);
+ * Pipeline&lt;OrderMessage&gt; pipeline = builder.build();
+ * </pre>
+ */
+public class PipelineBuilder<E extends Transferable<E>> {
+    
+    private final int capacity;
+    private final Class<E> transferableClass;
+    private final Builder<E> transferableBuilder;
+    private final List<Stage<E>> stages = new ArrayList<Stage<E>>();
+    private WaitStrategy waitStrategy = new BusySpinWaitStrategy();
+    private boolean built = false;
+    
+    public PipelineBuilder(int capacity, Class<E> transferable) {
+        this.capacity = capacity;
+        this.transferableClass = transferable;
+        this.transferableBuilder = null;
+    }
+    
+    public PipelineBuilder(int capacity, Builder<E> transferable) {
+        this.capacity = capacity;
+        this.transferableClass = null;
+        this.transferableBuilder = transferable;
+    }
+    
+    /**
+     * How the producer and the stages wait when they cannot move forward. The same instance is shared by all of them,
+     * so it must support many waiting threads. The default busy spins.
+     * 
+     * @param waitStrategy the wait strategy
+     * @return this builder
+     */
+    public PipelineBuilder<E> waitStrategy(WaitStrategy waitStrategy) {
+        this.waitStrategy = waitStrategy;
+        return this;
+    }
+    
+    /**
+     * Add a stage
+     * 
+     * @param name the name of the stage, also used to name its thread
+     * @param handler what the stage does with each message, in place
+     * @param upstream the stages that must be done with a message before this one gets it, none to get it right after the producer
+     * @return the new stage, to be used as the upstream of other stages
+     */
+    @SafeVarargs
+    @SuppressWarnings("varargs")
+    public final Stage<E> stage(String name, MessageHandler<E> handler, Stage<E>... upstream) {
+        if (built) throw new IllegalStateException("Pipeline was already built!");
+        for(Stage<E> stage : upstream) {
+            if (!stages.contains(stage)) throw new IllegalArgumentException("Stage is not from this builder: " + stage.name);
+            stage.terminal = false;
+        }
+        Stage<E> stage = new Stage<E>(name, handler, upstream.clone());
+        stages.add(stage);
+        return stage;
+    }
+    
+    public Pipeline<E> build() {
+        if (stages.isEmpty()) throw new IllegalStateException("A pipeline needs at least one stage!");
+        built = true;
+        if (transferableClass != null) {
+            return new Pipeline<E>(capacity, transferableClass, stages, waitStrategy);
+        } else {
+            return new Pipeline<E>(capacity, transferableBuilder, stages, waitStrategy);
+        }
+    }
+}
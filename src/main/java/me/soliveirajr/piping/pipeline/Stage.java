@@ -0,0 +1,56 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.pipeline;
+
+import me.soliveirajr.piping.MessageHandler;
+import me.soliveirajr.piping.util.Sequence;
+
+/**
+ * A consumer stage of a {@link Pipeline}. It runs its handler on its own thread over every message of the shared
+ * ring, in place, after all its upstream stages are done with that message.
+ */
+public class Stage<E> {
+    
+    final String name;
+    final MessageHandler<E> handler;
+    final Stage<E>[] upstream; // empty means it reads right after the producer
+    final Sequence sequence = new Sequence(); // next sequence to handle, everything before it is done
+    boolean terminal = true; // no other stage depends on it, so it gates the producer
+    
+    Stage(String name, MessageHandler<E> handler, Stage<E>[] upstream) {
+        this.name = name;
+        this.handler = handler;
+        this.upstream = upstream;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * How many messages this stage has handled so far
+     * 
+     * @return the sequence of the next message this stage will handle
+     */
+    public long getSequence() {
+        return sequence.get();
+    }
+    
+    @Override
+    public String toString() {
+        return name + "@" + sequence;
+    }
+}
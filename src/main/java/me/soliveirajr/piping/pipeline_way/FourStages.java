@@ -0,0 +1,117 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.pipeline_way;
+
+import me.soliveirajr.piping.MessageHandler;
+import me.soliveirajr.piping.pipeline.Pipeline;
+import me.soliveirajr.piping.pipeline.PipelineBuilder;
+import me.soliveirajr.piping.pipeline.Stage;
+import me.soliveirajr.piping.wait.YieldingWaitStrategy;
+
+/**
+ * The operations of ThreadB go through a decode, validate, apply and publish pipeline, with an audit stage running in
+ * parallel with validate. All the stages share the same ring of messages, so nothing is copied between them, and only
+ * the apply stage touches the counter.
+ */
+public class FourStages {
+    
+    private static long counter = 0; // only touched by the apply stage
+    private static long applied = 0; // only touched by the apply stage
+    private static long published = 0; // only touched by the publish stage
+    private static long lastCounter = 0; // only touched by the publish stage
+    private static long audited = 0; // only touched by the audit stage
+    
+    public static void main(String[] args) throws InterruptedException {
+        
+        final long iterations = args.length > 0 ? Long.parseLong(args[0]) : 10_000_000;
+        
+        PipelineBuilder<OpMessage> builder = new PipelineBuilder<OpMessage>(1024, OpMessage.class);
+        
+        if (Runtime.getRuntime().availableProcessors() < 6) {
+            builder.waitStrategy(new YieldingWaitStrategy()); // five stages and a producer, don't busy spin...
+        }
+        
+        Stage<OpMessage> decode = builder.stage("decode", new MessageHandler<OpMessage>() {
+            @Override
+            public void onMessage(OpMessage message) {
+                message.op = (message.encoded & 1) == 0 ? OpMessage.Op.ADD : OpMessage.Op.SUB;
+                message.value = message.encoded >>> 1;
+            }
+        });
+        
+        Stage<OpMessage> validate = builder.stage("validate", new MessageHandler<OpMessage>() {
+            @Override
+            public void onMessage(OpMessage message) {
+                message.valid = message.value < 20;
+            }
+        }, decode);
+        
+        Stage<OpMessage> audit = builder.stage("audit", new MessageHandler<OpMessage>() {
+            @Override
+            public void onMessage(OpMessage message) {
+                audited++;
+            }
+        }, decode);
+        
+        Stage<OpMessage> apply = builder.stage("apply", new MessageHandler<OpMessage>() {
+            @Override
+            public void onMessage(OpMessage message) {
+                if (!message.valid) throw new IllegalStateException("Bad value: " + message.value);
+                if (message.op == OpMessage.Op.ADD) {
+                    counter += message.value;
+                } else {
+                    counter -= message.value;
+                }
+                applied++;
+                message.counter = counter;
+            }
+        }, validate, audit);
+        
+        builder.stage("publish", new MessageHandler<OpMessage>() {
+            @Override
+            public void onMessage(OpMessage message) {
+                lastCounter = message.counter;
+                published++;
+            }
+        }, apply);
+        
+        Pipeline<OpMessage> pipeline = builder.build();
+        
+        pipeline.start();
+        
+        long start = System.nanoTime();
+        
+        OpMessage toSend = new OpMessage();
+        long i = 0;
+        while(i++ < iterations) { // same operations as ThreadB...
+            long x = i % 10;
+            if (x % 2 == 0) {
+                toSend.encoded = (x << 1) | 1; // SUB
+            } else {
+                toSend.encoded = (2 * x) << 1; // ADD
+            }
+            pipeline.dispatch(toSend);
+        }
+        
+        pipeline.stop();
+        
+        long elapsed = System.nanoTime() - start;
+        
+        System.out.println("Counter=" + counter + " after " + applied + " operations, " + published + " published with last counter=" 
+                           + lastCounter + " and " + audited + " audited");
+        System.out.println("Took " + elapsed / 1_000_000 + " millis");
+    }
+}
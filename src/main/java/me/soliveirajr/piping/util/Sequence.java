@@ -0,0 +1,97 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+abstract class SequenceLhsPadding {
+    protected long p1, p2, p3, p4, p5, p6, p7;
+}
+
+abstract class SequenceValue extends SequenceLhsPadding {
+    protected volatile long value;
+}
+
+abstract class SequenceRhsPadding extends SequenceValue {
+    protected long p9, p10, p11, p12, p13, p14, p15;
+}
+
+/**
+ * A long counter padded on both sides so that it sits alone in its cache line, avoiding false sharing
+ * between the producer and the consumer sequences of a pipe.
+ */
+public class Sequence extends SequenceRhsPadding {
+    
+    private static final VarHandle VALUE;
+    
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(SequenceValue.class, "value", long.class);
+        } catch(Exception e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+    
+    public Sequence() {
+        this(0);
+    }
+    
+    public Sequence(long initialValue) {
+        VALUE.setRelease(this, initialValue);
+    }
+    
+    /**
+     * Volatile read of the sequence
+     * 
+     * @return the current value
+     */
+    public long get() {
+        return value;
+    }
+    
+    /**
+     * Volatile write of the sequence
+     * 
+     * @param value the new value
+     */
+    public void set(long value) {
+        this.value = value;
+    }
+    
+    /**
+     * Ordered (release) write of the sequence. Cheaper than a volatile write and enough to publish
+     * everything written before it to a thread that reads the sequence.
+     * 
+     * @param value the new value
+     */
+    public void lazySet(long value) {
+        VALUE.setRelease(this, value);
+    }
+    
+    public boolean compareAndSet(long expected, long value) {
+        return VALUE.compareAndSet(this, expected, value);
+    }
+    
+    public long getAndAdd(long delta) {
+        return (long) VALUE.getAndAdd(this, delta);
+    }
+    
+    @Override
+    public String toString() {
+        return Long.toString(get());
+    }
+}
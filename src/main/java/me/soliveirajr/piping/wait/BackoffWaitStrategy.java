@@ -0,0 +1,64 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.wait;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Spins, then yields and then sleeps for exponentially longer periods, up to a maximum. The longer the pipe stays
+ * idle the less CPU it uses, at the cost of a wake up latency of up to the maximum park time.
+ */
+public class BackoffWaitStrategy implements WaitStrategy {
+    
+    private final int spinTries;
+    private final int yieldTries;
+    private final long minParkNanos;
+    private final long maxParkNanos;
+    
+    public BackoffWaitStrategy() {
+        this(100, 100, 1_000, 1_000_000);
+    }
+    
+    public BackoffWaitStrategy(int spinTries, int yieldTries, long minParkNanos, long maxParkNanos) {
+        if (minParkNanos <= 0 || maxParkNanos < minParkNanos) {
+            throw new IllegalArgumentException("Bad park times: min=" + minParkNanos + " max=" + maxParkNanos);
+        }
+        this.spinTries = spinTries;
+        this.yieldTries = yieldTries;
+        this.minParkNanos = minParkNanos;
+        this.maxParkNanos = maxParkNanos;
+    }
+    
+    @Override
+    public void idle(int attempt) {
+        if (attempt < 0) attempt = Integer.MAX_VALUE; // the caller's counter overflowed, keep backing off...
+        if (attempt < spinTries) {
+            Thread.onSpinWait();
+        } else if (attempt < spinTries + yieldTries) {
+            Thread.yield();
+        } else {
+            int shift = Math.min(attempt - spinTries - yieldTries, 62);
+            long parkNanos = minParkNanos << shift;
+            if (parkNanos <= 0 || parkNanos > maxParkNanos) parkNanos = maxParkNanos;
+            LockSupport.parkNanos(this, parkNanos);
+        }
+    }
+    
+    @Override
+    public void signal() {
+        // NOOP
+    }
+}
@@ -0,0 +1,102 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.wait;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Spins for a while and then parks the waiting thread until the other side signals that it made progress. The
+ * waiting thread first registers itself and returns, so that the pipe is checked again before it parks and a
+ * signal cannot be lost. The park is also bounded by a maximum time, so a thread that could not register (because
+ * too many threads are already waiting) still wakes up.
+ * 
+ * Signaling costs just a volatile read when nobody is waiting: there is no fence on that path. In the rare case
+ * where a thread registers right as the other side publishes and signals, the signal can miss it. The thread then
+ * wakes up after the maximum park time.
+ */
+public class ParkingWaitStrategy implements WaitStrategy {
+    
+    private final int spinTries;
+    private final long maxParkNanos;
+    private final AtomicReferenceArray<Thread> waiters;
+    private final AtomicInteger waiting = new AtomicInteger();
+    
+    public ParkingWaitStrategy() {
+        this(100, 1_000_000, 16);
+    }
+    
+    public ParkingWaitStrategy(int spinTries, long maxParkNanos, int maxWaiters) {
+        if (maxParkNanos <= 0 || maxWaiters <= 0) {
+            throw new IllegalArgumentException("Bad arguments: maxParkNanos=" + maxParkNanos + " maxWaiters=" + maxWaiters);
+        }
+        this.spinTries = spinTries;
+        this.maxParkNanos = maxParkNanos;
+        this.waiters = new AtomicReferenceArray<Thread>(maxWaiters);
+    }
+    
+    @Override
+    public void idle(int attempt) {
+        if (attempt >= 0 && attempt < spinTries) { // negative if the caller's counter overflowed...
+            Thread.onSpinWait();
+            return;
+        }
+        if (register(Thread.currentThread())) return; // check the pipe again before parking...
+        LockSupport.parkNanos(this, maxParkNanos);
+    }
+    
+    /**
+     * @return true if the thread was not registered and now is, false if it was already registered or there was no room
+     */
+    private boolean register(Thread thread) {
+        int free = -1;
+        for(int i = 0; i < waiters.length(); i++) {
+            Thread waiter = waiters.get(i);
+            if (waiter == thread) return false;
+            if (waiter == null && free == -1) free = i;
+        }
+        while(free != -1) {
+            if (waiters.compareAndSet(free, null, thread)) {
+                waiting.incrementAndGet();
+                return true;
+            }
+            free = nextFree(free + 1);
+        }
+        return false;
+    }
+    
+    private int nextFree(int from) {
+        for(int i = from; i < waiters.length(); i++) {
+            if (waiters.get(i) == null) return i;
+        }
+        return -1;
+    }
+    
+    @Override
+    public void signal() {
+        if (waiting.get() == 0) return; // fast path, nobody is parked...
+        VarHandle.fullFence(); // our publish must be visible before we take the waiters...
+        for(int i = 0; i < waiters.length(); i++) {
+            Thread waiter = waiters.get(i);
+            if (waiter != null && waiters.compareAndSet(i, waiter, null)) {
+                waiting.decrementAndGet();
+                LockSupport.unpark(waiter);
+            }
+        }
+    }
+}
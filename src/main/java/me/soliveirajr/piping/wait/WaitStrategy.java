@@ -0,0 +1,39 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.wait;
+
+/**
+ * How a blocking pipe waits when it cannot make progress, that is when there is no space to dispatch or no message
+ * to receive. It lets you trade latency against CPU usage per pipe.
+ */
+public interface WaitStrategy {
+    
+    /**
+     * Called by a blocked thread each time it fails to dispatch or receive. The caller checks the pipe again right
+     * after this method returns.
+     * 
+     * @param attempt how many times in a row the calling thread has already waited, starting at zero. After a very
+     *                long wait the caller's counter can overflow, so a negative attempt must be treated as the longest
+     *                wait and never as a fresh one.
+     */
+    public void idle(int attempt);
+    
+    /**
+     * Called by a thread after it has dispatched or received a message, so that a thread blocked on the other side
+     * can be woken up.
+     */
+    public void signal();
+}
@@ -0,0 +1,47 @@
+/* 
+ * Copyright 2023 (c) Sergio Oliveira Jr. - https://github.com/saoj
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package me.soliveirajr.piping.wait;
+
+/**
+ * Spins for a while and then yields the CPU to other threads on every attempt. Good when there are more threads
+ * than cores but you still want to react quickly.
+ */
+public class YieldingWaitStrategy implements WaitStrategy {
+    
+    private final int spinTries;
+    
+    public YieldingWaitStrategy() {
+        this(100);
+    }
+    
+    public YieldingWaitStrategy(int spinTries) {
+        this.spinTries = spinTries;
+    }
+    
+    @Override
+    public void idle(int attempt) {
+        if (attempt >= 0 && attempt < spinTries) { // negative if the caller's counter overflowed...
+            Thread.onSpinWait();
+        } else {
+            Thread.yield();
+        }
+    }
+    
+    @Override
+    public void signal() {
+        // NOOP
+    }
+}